@@ -0,0 +1,26 @@
+package org.tvenceslau.java.Cloneable.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar: same command line as JMH's own, with the GC profiler always on, so every result
+ * comes with its allocation rate and bytes allocated per operation ('gc.alloc.rate.norm').
+ * <p>Eg: 'java -jar deep-clone-benchmarks/target/benchmarks.jar CloneBenchmarks -p depth=6 -p collectionSize=128'</p>
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,125 @@
+package org.tvenceslau.java.Cloneable.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tvenceslau.java.Cloneable.CloneContext;
+import org.tvenceslau.java.Cloneable.CloneProfile;
+import org.tvenceslau.java.Cloneable.Cloneables;
+import org.tvenceslau.java.Cloneable.MockDomain.CompostMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.GraphMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.MockObject;
+import org.tvenceslau.java.Cloneable.TemplateSnapshot;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clone side of the hot paths: plain, recycling and identity preserving {@code cloneSelf()}, clone + update,
+ * bulk clone + update, materializing from an off heap template snapshot, partial cloning through a profile and
+ * {@code ToClone} custom cloning.
+ * <p>Throughput plus sampled latency (for the percentiles), run with the GC profiler for allocation per op,
+ * see {@link Benchmarks}</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CloneBenchmarks {
+
+    /** child nodes per node */
+    @Param({"4"})
+    public int width;
+
+    /** levels of nodes */
+    @Param({"4"})
+    public int depth;
+
+    /** leaves per node, and elements of the ToClone compost */
+    @Param({"16"})
+    public int collectionSize;
+
+    /** chance of a node referencing an existing leaf instead of a new one */
+    @Param({"0", "0.5"})
+    public double sharing;
+
+    /** clones per bulk operation */
+    @Param({"64"})
+    public int count;
+
+    private GraphMockObject graph;
+    private CompostMockObject compost;
+
+    /** the previous clone, for the recycling benchmark. Written on every op, so don't run it with several threads */
+    private GraphMockObject recycled;
+
+    private TemplateSnapshot<GraphMockObject> snapshot;
+
+    /** clones the root and its left/right leaves, shares the children */
+    private final CloneProfile profile = CloneProfile.named("benchmark", CloneProfile.Mode.SHALLOW).deep("left", "right");
+
+    @Setup
+    public void setUp() {
+        graph = GraphShapes.tree(width, depth, collectionSize, sharing);
+        compost = GraphShapes.compost(collectionSize);
+        recycled = graph.cloneSelf();
+        snapshot = Cloneables.templateSnapshot(graph);
+    }
+
+    @Benchmark
+    public MockObject cloneSelf() {
+        return graph.cloneSelf();
+    }
+
+    @Benchmark
+    public MockObject cloneInto() {
+        return graph.cloneInto(recycled);
+    }
+
+    @Benchmark
+    public MockObject cloneSelfWithContext() {
+        return graph.cloneSelf(new CloneContext());
+    }
+
+    @Benchmark
+    public MockObject cloneAndUpdate() {
+        final MockObject clone = graph.cloneSelf();
+        clone.updateSelf(7);
+        return clone;
+    }
+
+    @Benchmark
+    public MockObject cloneAndUpdateSinglePass() {
+        return graph.cloneAndUpdate(7);
+    }
+
+    @Benchmark
+    public List<GraphMockObject> bulkCloneAndUpdate() {
+        return Cloneables.bulkClone(graph, count);
+    }
+
+    @Benchmark
+    public MockObject materializeAndUpdate() {
+        return snapshot.materialize(7);
+    }
+
+    @Benchmark
+    public MockObject cloneWithProfile() {
+        return graph.cloneSelf(profile);
+    }
+
+    @Benchmark
+    public MockObject customClone() {
+        return compost.cloneSelf();
+    }
+}
@@ -0,0 +1,90 @@
+package org.tvenceslau.java.Cloneable.benchmarks;
+
+import org.tvenceslau.java.Cloneable.MockDomain.CompostMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.GraphMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.MockEnum;
+import org.tvenceslau.java.Cloneable.MockDomain.MockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.SimpleCompostMockObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the benchmarked object graphs out of the MockDomain classes
+ */
+final class GraphShapes {
+
+    private GraphShapes() {
+    }
+
+    /**
+     * A tree of {@link GraphMockObject}s: every node has {@param width} child nodes (down to {@param depth} levels)
+     * followed by {@param collectionSize} leaves in its 'children' list, plus a leaf in 'left' and one in 'right'.
+     * <p>With probability {@param sharing} 'left'/'right' reference a leaf that is already somewhere else in the graph
+     * instead of a new one. Leaves have no references, so the graph never has cycles</p>
+     *
+     * @return the root of the tree
+     */
+    static GraphMockObject tree(int width, int depth, int collectionSize, double sharing) {
+        return node(width, depth, collectionSize, sharing, new Random(42), new ArrayList<>());
+    }
+
+    private static GraphMockObject node(int width, int depth, int collectionSize, double sharing, Random random,
+                                        List<MockObject> leaves) {
+        final GraphMockObject node = new GraphMockObject();
+        node.setName("node");
+
+        for (int i = 0; depth > 1 && i < width; i++)
+            node.getChildren().add(node(width, depth - 1, collectionSize, sharing, random, leaves));
+        for (int i = 0; i < collectionSize; i++)
+            node.getChildren().add(leaf(i % 4 == 3, leaves));
+
+        node.setLeft(pick(sharing, random, leaves));
+        node.setRight(pick(sharing, random, leaves));
+        return node;
+    }
+
+    private static MockObject pick(double sharing, Random random, List<MockObject> leaves) {
+        if (!leaves.isEmpty() && random.nextDouble() < sharing)
+            return leaves.get(random.nextInt(leaves.size()));
+        return leaf(false, leaves);
+    }
+
+    private static MockObject leaf(boolean compost, List<MockObject> leaves) {
+        final MockObject leaf;
+        if (compost) {
+            final SimpleCompostMockObject simple = new SimpleCompostMockObject();
+            simple.setChildObject(new MockObject());
+            leaf = simple;
+        } else
+            leaf = new MockObject();
+
+        leaf.setName("leaf");
+        leaves.add(leaf);
+        return leaf;
+    }
+
+    /**
+     * A {@link CompostMockObject} holding {@param collectionSize} other {@link CompostMockObject}s, every one of them
+     * with a {@link MockEnum}, so each clone runs {@param collectionSize} + 1 {@code ToClone} methods
+     *
+     * @return the root
+     */
+    static CompostMockObject compost(int collectionSize) {
+        final CompostMockObject root = new CompostMockObject();
+        root.setName("compost");
+        root.setMockEnum(MockEnum.ONE);
+
+        final List<MockObject> list = new ArrayList<>(collectionSize);
+        for (int i = 0; i < collectionSize; i++) {
+            final CompostMockObject element = new CompostMockObject();
+            element.setName("element");
+            element.setMockEnum(i % 2 == 0 ? MockEnum.ONE : MockEnum.TWO);
+            element.setMockObjectList(new ArrayList<>());
+            list.add(element);
+        }
+        root.setMockObjectList(list);
+        return root;
+    }
+}
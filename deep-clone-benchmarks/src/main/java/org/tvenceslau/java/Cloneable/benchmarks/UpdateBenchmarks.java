@@ -0,0 +1,62 @@
+package org.tvenceslau.java.Cloneable.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tvenceslau.java.Cloneable.MockDomain.GraphMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.MockObject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code updateSelf(int)} alone. Every update appends to the names it touches, so each invocation gets a fresh clone
+ * (made outside of the measurement), which is why this sits apart from {@link CloneBenchmarks}
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UpdateBenchmarks {
+
+    @Param({"4"})
+    public int width;
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"16"})
+    public int collectionSize;
+
+    @Param({"0", "0.5"})
+    public double sharing;
+
+    private GraphMockObject graph;
+    private MockObject clone;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = GraphShapes.tree(width, depth, collectionSize, sharing);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshClone() {
+        clone = graph.cloneSelf();
+    }
+
+    @Benchmark
+    public MockObject updateSelf() {
+        clone.updateSelf(7);
+        return clone;
+    }
+}
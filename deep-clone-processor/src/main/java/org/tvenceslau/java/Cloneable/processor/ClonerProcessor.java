@@ -0,0 +1,483 @@
+package org.tvenceslau.java.Cloneable.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code CompiledCloner} for every concrete class implementing {@value #CLONEABLE}.
+ * <p>The generated cloner sits in the same package as the class, is named after the class' binary name plus
+ * {@value #SUFFIX}, and applies the same {@code ToClone}/{@code NotToClone}/{@code ToUpdate}/{@code NotToUpdate}
+ * rules as the runtime implementation, but as plain, static, Java code:</p>
+ * <ul>
+ *     <li>Fields it can reach are read and written directly</li>
+ *     <li>Private, final or otherwise unreachable fields go through {@code MethodHandle}s created once,
+ *     in the cloner's static initializer</li>
+ *     <li>{@code ToClone} methods are resolved and called directly whenever they can be found on the field's type,
+ *     the rest (and copy constructors and static factories) go through a {@code CustomCloner} created once</li>
+ *     <li>{@code UpdateSpecification}s are instantiated once, in the cloner's static initializer</li>
+ * </ul>
+ * <p>Works only with names, so it doesn't need the 'deep-clone' classes on its own classpath</p>
+ */
+@SupportedAnnotationTypes("*")
+public class ClonerProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "org.tvenceslau.java.Cloneable";
+    static final String CLONEABLE = PACKAGE + ".Cloneable";
+    static final String TO_CLONE = CLONEABLE + ".ToClone";
+    static final String NOT_TO_CLONE = CLONEABLE + ".NotToClone";
+    static final String TO_UPDATE = CLONEABLE + ".ToUpdate";
+    static final String NOT_TO_UPDATE = CLONEABLE + ".NotToUpdate";
+    static final String IMMUTABLE = CLONEABLE + ".Immutable";
+    static final String SUFFIX = "_DeepCloner";
+
+    private static final String SUPPORT = PACKAGE + ".CompiledCloners";
+
+    /**
+     * The runtime's built in ImmutableTypes. Types registered at runtime can't be known here
+     */
+    private static final Set<String> IMMUTABLES = new HashSet<>(Arrays.asList(
+            "java.lang.String", "java.lang.Boolean", "java.lang.Character", "java.lang.Byte", "java.lang.Short",
+            "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double",
+            "java.math.BigInteger", "java.math.BigDecimal", "java.util.UUID"));
+
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+
+        final TypeElement cloneable = elements.getTypeElement(CLONEABLE);
+        if (cloneable == null)
+            return false;
+
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements()))
+            scan(type, types.erasure(cloneable.asType()));
+
+        // never claim annotations, other processors may want them too
+        return false;
+    }
+
+    private void scan(TypeElement type, TypeMirror cloneable) {
+        for (TypeElement member : ElementFilter.typesIn(type.getEnclosedElements()))
+            scan(member, cloneable);
+
+        if (type.getKind() != ElementKind.CLASS
+                || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !types.isAssignable(types.erasure(type.asType()), cloneable))
+            return;
+
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE))
+                return;
+            // inner classes need an enclosing instance to be created
+            if (e instanceof TypeElement && ((TypeElement) e).getNestingKind() == NestingKind.MEMBER
+                    && !e.getModifiers().contains(Modifier.STATIC))
+                return;
+        }
+
+        try {
+            generate(type);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write the cloner for " + type + ". " + e.getMessage(), type);
+        }
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        final PackageElement pkg = elements.getPackageOf(type);
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String binaryName = elements.getBinaryName(type).toString();
+        final String clonerName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        final String typeName = type.getQualifiedName().toString();
+
+        final List<FieldModel> fields = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements()))
+                if (!field.getModifiers().contains(Modifier.STATIC))
+                    fields.add(new FieldModel(fields.size(), field, current, pkg));
+
+            final TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+        }
+
+        final StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty())
+            out.append("package ").append(packageName).append(";\n\n");
+
+        out.append("/**\n * Generated by ").append(ClonerProcessor.class.getName()).append(" for {@link ")
+                .append(typeName).append("}. Do not edit.\n */\n");
+        // the casts pin down invokeExact's signatures, for some field types they are redundant
+        out.append("@SuppressWarnings({\"unchecked\", \"rawtypes\", \"cast\"})\n");
+        out.append("public final class ").append(clonerName).append(" implements ")
+                .append(PACKAGE).append(".CompiledCloner<").append(typeName).append("> {\n\n");
+
+        for (FieldModel field : fields)
+            field.declareConstants(out, typeName);
+
+        out.append("\n    @Override\n    public ").append(typeName).append(" newInstance() {\n        return ")
+                .append(hasAccessibleConstructor(type, pkg) ? "new " + typeName + "()" : SUPPORT + ".newInstance(" + typeName + ".class)")
+                .append(";\n    }\n");
+
+        out.append("\n    @Override\n    public void copy(").append(typeName).append(" origin, ")
+                .append(typeName).append(" destination) {\n        try {\n");
+        for (FieldModel field : fields)
+            field.writeCopy(out);
+        out.append("        } catch (Throwable t) {\n            throw ").append(SUPPORT).append(".rethrow(t);\n        }\n    }\n");
+
+        out.append("\n    @Override\n    public void update(").append(typeName).append(" target, int index) {\n        try {\n");
+        for (FieldModel field : fields)
+            field.writeUpdate(out);
+        out.append("        } catch (Throwable t) {\n            throw ").append(SUPPORT).append(".rethrow(t);\n        }\n    }\n}\n");
+
+        final JavaFileObject file = processingEnv.getFiler()
+                .createSourceFile(packageName.isEmpty() ? clonerName : packageName + "." + clonerName, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private boolean hasAccessibleConstructor(TypeElement type, PackageElement pkg) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+            if (constructor.getParameters().isEmpty())
+                return isAccessible(constructor, pkg);
+        return false;
+    }
+
+    /**
+     * @return true if {@param element} can be referred to from code in {@param pkg}
+     */
+    private boolean isAccessible(Element element, PackageElement pkg) {
+        final Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE))
+            return false;
+        return modifiers.contains(Modifier.PUBLIC) || elements.getPackageOf(element).equals(pkg);
+    }
+
+    /**
+     * @return true if {@param type} and all of its enclosing types can be referred to from code in {@param pkg}
+     */
+    private boolean isTypeAccessible(TypeElement type, PackageElement pkg) {
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement())
+            if (!isAccessible(e, pkg))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the erasure of {@param type} as it can be written in {@param pkg}, or java.lang.Object if it can't
+     */
+    private String sourceName(TypeMirror type, PackageElement pkg) {
+        final TypeMirror erasure = types.erasure(type);
+        if (erasure.getKind().isPrimitive())
+            return erasure.toString();
+
+        TypeMirror component = erasure;
+        while (component.getKind() == TypeKind.ARRAY)
+            component = ((ArrayType) component).getComponentType();
+
+        if (component.getKind() == TypeKind.DECLARED
+                && !isTypeAccessible((TypeElement) types.asElement(component), pkg))
+            return "java.lang.Object";
+        return erasure.toString();
+    }
+
+    /**
+     * Same rules as the runtime's ImmutableTypes: built in types, enums, java.time and Immutable annotated classes
+     */
+    private boolean isImmutable(TypeMirror type) {
+        if (type.getKind().isPrimitive())
+            return true;
+        if (type.getKind() != TypeKind.DECLARED)
+            return false;
+
+        final TypeElement element = (TypeElement) types.asElement(type);
+        final String name = element.getQualifiedName().toString();
+        return element.getKind() == ElementKind.ENUM || IMMUTABLES.contains(name) || name.startsWith("java.time.")
+                || annotation(element, IMMUTABLE) != null;
+    }
+
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors())
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name))
+                return mirror;
+        return null;
+    }
+
+    private AnnotationValue annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                elements.getElementValuesWithDefaults(mirror).entrySet())
+            if (entry.getKey().getSimpleName().contentEquals(name))
+                return entry.getValue();
+        return null;
+    }
+
+    private enum CloneKind {SHARE, CONTAINER, CUSTOM, SINGLE}
+
+    /**
+     * A single field of a generated cloner. Mirrors the runtime's ClonePlan.FieldAction
+     */
+    private final class FieldModel {
+
+        private final VariableElement field;
+        private final TypeElement declaring;
+        private final String name;
+        private final String type;
+        private final boolean primitive;
+        private final boolean direct;
+        private final CloneKind cloneKind;
+        private final boolean update;
+        private final boolean container;
+        /** true for containers updated element by element, false for the ones whose spec updates them as a whole */
+        private final boolean updateElements;
+        private final boolean immutableElements;
+        private final boolean canHoldCloneable;
+
+        /** the {@code ToClone} method name and whether it could be resolved on the field's type */
+        private final String customMethod;
+        private final boolean customDirect;
+
+        /** the {@code ToUpdate} spec's source name (null when not referable) and binary name */
+        private final String specName;
+        private final String specBinaryName;
+
+        FieldModel(int index, VariableElement field, TypeElement declaring, PackageElement pkg) {
+            this.field = field;
+            this.declaring = declaring;
+            this.name = "f" + index;
+
+            final TypeMirror fieldType = field.asType();
+            this.primitive = fieldType.getKind().isPrimitive();
+            this.type = sourceName(fieldType, pkg);
+            // the field's type may have been replaced by Object if it can't be named here, those go through handles
+            final boolean typeNamed = !"java.lang.Object".equals(type)
+                    || "java.lang.Object".equals(types.erasure(fieldType).toString());
+            this.direct = typeNamed && !field.getModifiers().contains(Modifier.FINAL)
+                    && isAccessible(field, pkg) && isTypeAccessible(declaring, pkg);
+
+            // Collections, Maps and arrays, see the runtime's Containers
+            final boolean immutable = isImmutable(fieldType);
+            this.container = !immutable && (fieldType.getKind() == TypeKind.ARRAY
+                    || isSubtype(fieldType, "java.util.Collection") || isSubtype(fieldType, "java.util.Map"));
+            this.immutableElements = container && holdsOnlyImmutables(fieldType);
+
+            final AnnotationMirror toClone = annotation(field, TO_CLONE);
+            if (primitive || annotation(field, NOT_TO_CLONE) != null || (immutable && toClone == null))
+                this.cloneKind = CloneKind.SHARE;
+            else if (container)
+                this.cloneKind = CloneKind.CONTAINER;
+            else if (toClone != null)
+                this.cloneKind = CloneKind.CUSTOM;
+            else
+                this.cloneKind = CloneKind.SINGLE;
+
+            this.canHoldCloneable = canHoldCloneable(fieldType);
+
+            if (cloneKind == CloneKind.CUSTOM) {
+                this.customMethod = (String) annotationValue(toClone, "method").getValue();
+                // copy constructors and static factories go through the runtime's CustomCloner
+                final VariableElement strategy = (VariableElement) annotationValue(toClone, "strategy").getValue();
+                this.customDirect = strategy.getSimpleName().contentEquals("METHOD") && resolveCustom(fieldType, pkg);
+            } else {
+                this.customMethod = null;
+                this.customDirect = false;
+            }
+
+            final AnnotationMirror toUpdate = annotation(field, TO_UPDATE);
+            if (toUpdate != null) {
+                final TypeElement spec = (TypeElement) types.asElement((TypeMirror) annotationValue(toUpdate, "spec").getValue());
+                this.specBinaryName = elements.getBinaryName(spec).toString();
+                this.specName = isTypeAccessible(spec, pkg) ? spec.getQualifiedName().toString() : null;
+            } else {
+                this.specBinaryName = null;
+                this.specName = null;
+            }
+
+            // Maps and arrays with a spec get it applied to them as a whole, Collections have their elements updated
+            this.updateElements = container && (toUpdate == null || isSubtype(fieldType, "java.util.Collection"));
+            this.update = annotation(field, NOT_TO_UPDATE) == null
+                    && (updateElements
+                    ? !immutableElements && canHoldCloneableElements(fieldType)
+                    : toUpdate != null || canHoldCloneable);
+        }
+
+        private boolean isSubtype(TypeMirror fieldType, String name) {
+            return !primitive && types.isAssignable(types.erasure(fieldType),
+                    types.erasure(elements.getTypeElement(name).asType()));
+        }
+
+        /**
+         * Arrays declared with an immutable component, or collections and maps whose type arguments are all immutable
+         */
+        private boolean holdsOnlyImmutables(TypeMirror fieldType) {
+            if (fieldType.getKind() == TypeKind.ARRAY)
+                return isImmutable(((ArrayType) fieldType).getComponentType());
+            if (fieldType.getKind() != TypeKind.DECLARED)
+                return false;
+
+            final List<? extends TypeMirror> arguments = ((DeclaredType) fieldType).getTypeArguments();
+            if (arguments.isEmpty())
+                return false;
+            for (TypeMirror argument : arguments)
+                if (!isImmutable(argument))
+                    return false;
+            return true;
+        }
+
+        /**
+         * Arrays of primitives or of final non Cloneable classes (eg: String) have nothing to update
+         */
+        private boolean canHoldCloneableElements(TypeMirror fieldType) {
+            return fieldType.getKind() != TypeKind.ARRAY || canHoldCloneable(((ArrayType) fieldType).getComponentType());
+        }
+
+        /**
+         * Primitives, immutable types and final non Cloneable classes (eg: String) can never hold a Cloneable
+         */
+        private boolean canHoldCloneable(TypeMirror fieldType) {
+            if (fieldType.getKind().isPrimitive() || fieldType.getKind() == TypeKind.ARRAY || isImmutable(fieldType))
+                return false;
+            if (fieldType.getKind() != TypeKind.DECLARED)
+                return true;
+
+            final TypeElement element = (TypeElement) types.asElement(fieldType);
+            final TypeElement cloneable = elements.getTypeElement(CLONEABLE);
+            return !element.getModifiers().contains(Modifier.FINAL)
+                    || types.isAssignable(types.erasure(fieldType), types.erasure(cloneable.asType()));
+        }
+
+        /**
+         * Looks for the no-arg {@code ToClone} method on the field's own type.
+         * Reports an error when the type is final and doesn't have it, since that would always fail at runtime
+         */
+        private boolean resolveCustom(TypeMirror fieldType, PackageElement pkg) {
+            if (fieldType.getKind() != TypeKind.DECLARED || "java.lang.Object".equals(type))
+                return false;
+
+            final TypeElement element = (TypeElement) types.asElement(fieldType);
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(element)))
+                if (method.getSimpleName().contentEquals(customMethod) && method.getParameters().isEmpty()
+                        && !method.getModifiers().contains(Modifier.STATIC))
+                    return isAccessible(method, pkg) && isTypeAccessible((TypeElement) method.getEnclosingElement(), pkg);
+
+            if (element.getModifiers().contains(Modifier.FINAL))
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Couldn't find a match to the provided method name '" + customMethod + "' in " + element, field);
+            return false;
+        }
+
+        private String boxed() {
+            return primitive ? types.boxedClass(types.getPrimitiveType(field.asType().getKind())).getQualifiedName().toString() : type;
+        }
+
+        void declareConstants(StringBuilder out, String owner) {
+            final String declaringName = elements.getBinaryName(declaring).toString();
+            final String fieldName = field.getSimpleName().toString();
+            if (!direct) {
+                out.append("    private static final java.lang.invoke.MethodHandle GET_").append(name).append(" = ")
+                        .append(SUPPORT).append(".getter(").append(owner).append(".class, \"")
+                        .append(declaringName).append("\", \"").append(fieldName).append("\");\n");
+                out.append("    private static final java.lang.invoke.MethodHandle SET_").append(name).append(" = ")
+                        .append(SUPPORT).append(".setter(").append(owner).append(".class, \"")
+                        .append(declaringName).append("\", \"").append(fieldName).append("\");\n");
+            }
+            if (cloneKind == CloneKind.CUSTOM && !customDirect)
+                out.append("    private static final ").append(PACKAGE).append(".CustomCloner CUSTOM_").append(name)
+                        .append(" = ").append(SUPPORT).append(".customCloner(").append(owner).append(".class, \"")
+                        .append(declaringName).append("\", \"").append(fieldName).append("\");\n");
+            if (specBinaryName != null && update) {
+                out.append("    private static final ").append(PACKAGE).append(".Cloneable.UpdateSpecification SPEC_")
+                        .append(name).append(" = ").append(SUPPORT);
+                if (specName != null)
+                    out.append(".spec(").append(specName).append(".class);\n");
+                else
+                    out.append(".spec(").append(owner).append(".class, \"").append(specBinaryName).append("\");\n");
+            }
+        }
+
+        private String read(String target) {
+            if (direct)
+                return target + "." + field.getSimpleName();
+            if (primitive)
+                return "((" + type + ") GET_" + name + ".invokeExact((Object) " + target + "))";
+            return "((" + type + ") (Object) GET_" + name + ".invokeExact((Object) " + target + "))";
+        }
+
+        private String write(String target, String value) {
+            if (direct)
+                return target + "." + field.getSimpleName() + " = " + value + ";";
+            return "SET_" + name + ".invokeExact((Object) " + target + ", (" + (primitive ? type : "Object") + ") (" + value + "));";
+        }
+
+        void writeCopy(StringBuilder out) {
+            final String value;
+            switch (cloneKind) {
+                case SHARE:
+                    value = read("origin");
+                    break;
+                case CONTAINER:
+                    value = SUPPORT + (immutableElements ? ".copyContainer(" : ".cloneCollection(") + read("origin") + ")";
+                    break;
+                case CUSTOM:
+                    if (customDirect) {
+                        out.append("            final ").append(type).append(" ").append(name).append(" = ").append(read("origin")).append(";\n");
+                        value = name + " == null ? null : (" + type + ") " + name + "." + customMethod + "()";
+                    } else
+                        value = "(" + type + ") CUSTOM_" + name + ".copy(" + read("origin") + ")";
+                    break;
+                default:
+                    value = canHoldCloneable ? SUPPORT + ".cloneValue(" + read("origin") + ")" : read("origin");
+            }
+            out.append("            ").append(write("destination", value)).append("\n");
+        }
+
+        void writeUpdate(StringBuilder out) {
+            if (!update)
+                return;
+
+            if (updateElements)
+                out.append("            ").append(write("target", SUPPORT + ".updateCollection(" + read("target") + ", index)")).append("\n");
+            else if (specBinaryName != null)
+                out.append("            ").append(write("target", "(" + boxed() + ") " + SUPPORT + ".update("
+                        + read("target") + ", SPEC_" + name + ", index)")).append("\n");
+            else
+                out.append("            ").append(SUPPORT).append(".update(").append(read("target")).append(", null, index);\n");
+        }
+    }
+}
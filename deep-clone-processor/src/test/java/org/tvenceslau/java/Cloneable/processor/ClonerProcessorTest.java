@@ -0,0 +1,167 @@
+package org.tvenceslau.java.Cloneable.processor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles a fixture model, together with the library's sources, through {@link ClonerProcessor}, then clones it
+ */
+public class ClonerProcessorTest {
+
+    /**
+     * the library's sources, from this module's directory
+     */
+    private static final Path LIBRARY = Paths.get(System.getProperty("library.sources", "../src/main/java"));
+
+    private static final String NODE = "package fixture;\n"
+            + "import java.util.ArrayList;\n"
+            + "import java.util.List;\n"
+            + "import org.tvenceslau.java.Cloneable.Cloneable;\n"
+            + "public class Node implements Cloneable<Node> {\n"
+            + "    @ToUpdate(spec = Suffix.class)\n"
+            + "    private String name;\n"
+            + "    private int count;\n"
+            + "    private long total;\n"
+            + "    private Node child;\n"
+            + "    List<Node> children = new ArrayList<>();\n"
+            + "    @NotToClone\n"
+            + "    private Object owner;\n"
+            + "}\n";
+
+    private static final String SUFFIX = "package fixture;\n"
+            + "import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;\n"
+            + "public class Suffix implements UpdateSpecification<String> {\n"
+            + "    @Override\n"
+            + "    public String update(String originalValue, int index) {\n"
+            + "        return originalValue + \"_\" + index;\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    public void testGeneratedClonerIsUsed() throws Exception {
+        final Path root = Files.createTempDirectory("cloner-processor");
+        try {
+            final Path sources = root.resolve("src/fixture");
+            final Path generated = root.resolve("generated");
+            final Path classes = root.resolve("classes");
+            Files.createDirectories(sources);
+            Files.createDirectories(generated);
+            Files.createDirectories(classes);
+            Files.write(sources.resolve("Node.java"), NODE.getBytes(StandardCharsets.UTF_8));
+            Files.write(sources.resolve("Suffix.java"), SUFFIX.getBytes(StandardCharsets.UTF_8));
+
+            final List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(root.resolve("src"), generated, classes);
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics)
+                Assert.assertNotEquals(diagnostic.toString(), Diagnostic.Kind.ERROR, diagnostic.getKind());
+            // nothing to warn about in what the processor writes, under -Xlint:all
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics)
+                if (diagnostic.getSource() != null)
+                    Assert.assertFalse(diagnostic.toString(),
+                            diagnostic.getSource().getName().endsWith("_DeepCloner.java"));
+            Assert.assertTrue(Files.exists(generated.resolve("fixture/Node_DeepCloner.java")));
+
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                    ClassLoader.getSystemClassLoader().getParent())) {
+                final Class<?> node = loader.loadClass("fixture.Node");
+                final Method find = loader.loadClass("org.tvenceslau.java.Cloneable.CompiledCloners")
+                        .getDeclaredMethod("find", Class.class);
+                find.setAccessible(true);
+                final Object cloner = find.invoke(null, node);
+                Assert.assertNotNull(cloner);
+                Assert.assertEquals("fixture.Node_DeepCloner", cloner.getClass().getName());
+
+                final Object child = node.getDeclaredConstructor().newInstance();
+                set(child, "name", "child");
+                final Object origin = node.getDeclaredConstructor().newInstance();
+                final Object owner = new Object();
+                set(origin, "name", "origin");
+                set(origin, "count", 7);
+                set(origin, "total", 42L);
+                set(origin, "child", child);
+                set(origin, "owner", owner);
+                get(origin, "children", List.class).add(child);
+
+                final Object clone = node.getMethod("cloneAndUpdate", int.class).invoke(origin, 3);
+                Assert.assertNotSame(origin, clone);
+                Assert.assertEquals("origin_3", get(clone, "name", String.class));
+                Assert.assertEquals(7, (int) get(clone, "count", Integer.class));
+                Assert.assertEquals(42L, (long) get(clone, "total", Long.class));
+                Assert.assertSame(owner, get(clone, "owner", Object.class));
+
+                final Object clonedChild = get(clone, "child", Object.class);
+                Assert.assertNotSame(child, clonedChild);
+                Assert.assertEquals("child_3", get(clonedChild, "name", String.class));
+                Assert.assertNotSame(get(origin, "children", List.class), get(clone, "children", List.class));
+                Assert.assertEquals("child", get(child, "name", String.class));
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(Path sources, Path generated, Path classes)
+            throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertNotNull("Needs a JDK", compiler);
+
+        final List<Path> files;
+        try (Stream<Path> library = Files.walk(LIBRARY); Stream<Path> fixture = Files.walk(sources)) {
+            files = Stream.concat(library, fixture)
+                    .filter(path -> path.toString().endsWith(".java"))
+                    .collect(Collectors.toList());
+        }
+
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(
+                    files.stream().map(Path::toFile).collect(Collectors.toList()));
+            final List<String> options = new ArrayList<>(Arrays.asList("-Xlint:all", "-Xlint:-options",
+                    "-s", generated.toString(), "-d", classes.toString()));
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, units);
+            task.setProcessors(Collections.singletonList(new ClonerProcessor()));
+            Assert.assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static <V> V get(Object target, String name, Class<V> type) throws ReflectiveOperationException {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return type.cast(field.get(target));
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Collections.reverseOrder()).collect(Collectors.toList()))
+                Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.tvenceslau.java.Cloneable;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Commits a JFR event for every whole clone and update, see {@link CloneMetrics#enableFlightRecorder()}.
+ * <p>Kept out of the Java 8 sources, as it needs the jdk.jfr API to build: only built on JDKs that have it, and only
+ * ever loaded, by name, after checking the JVM has it too. Events are checked with {@link Event#shouldCommit()},
+ * so they cost next to nothing while no recording has them enabled</p>
+ */
+final class FlightRecorderListener implements CloneListener {
+
+    FlightRecorderListener() {
+    }
+
+    @Override
+    public void cloned(Class<?> type, int objects, long nanos) {
+        final CloneEvent event = new CloneEvent();
+        if (!event.shouldCommit())
+            return;
+
+        event.type = type;
+        event.objects = objects;
+        event.time = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void updated(Class<?> type, long nanos) {
+        final UpdateEvent event = new UpdateEvent();
+        if (!event.shouldCommit())
+            return;
+
+        event.type = type;
+        event.time = nanos;
+        event.commit();
+    }
+
+    @Name("org.tvenceslau.java.Cloneable.Clone")
+    @Label("Clone")
+    @Category("Deep Cloning")
+    @Description("A whole cloneSelf()")
+    @StackTrace(false)
+    static final class CloneEvent extends Event {
+
+        @Label("Type")
+        Class<?> type;
+
+        @Label("Objects Cloned")
+        int objects;
+
+        @Label("Clone Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("org.tvenceslau.java.Cloneable.Update")
+    @Label("Update")
+    @Category("Deep Cloning")
+    @Description("A whole updateSelf(int)")
+    @StackTrace(false)
+    static final class UpdateEvent extends Event {
+
+        @Label("Type")
+        Class<?> type;
+
+        @Label("Update Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+}
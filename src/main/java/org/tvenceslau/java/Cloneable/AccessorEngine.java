@@ -0,0 +1,60 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.lang.reflect.Field;
+
+/**
+ * The available ways of reading/writing field values when cloning and updating.
+ * <p>Picked once at startup via the {@value #PROPERTY} system property, eg:
+ * '-Dorg.tvenceslau.java.Cloneable.accessor=reflection'. Defaults to {@link #METHOD_HANDLE}</p>
+ *
+ * @see FieldAccessor
+ */
+public enum AccessorEngine {
+
+    /**
+     * Plain {@link Field#get(Object)}/{@link Field#set(Object, Object)}. Boxes primitives
+     */
+    REFLECTION,
+
+    /**
+     * {@link java.lang.invoke.MethodHandle} getters and setters, with primitive fields copied without boxing.
+     * Falls back to {@link #REFLECTION} for any field a handle can't be created for
+     */
+    METHOD_HANDLE;
+
+    public static final String PROPERTY = "org.tvenceslau.java.Cloneable.accessor";
+
+    /**
+     * The engine in use, as read from {@value #PROPERTY} when the class was loaded
+     */
+    static final AccessorEngine CURRENT = fromProperty();
+
+    private static AccessorEngine fromProperty() {
+        final String value = System.getProperty(PROPERTY);
+        if (value == null || value.trim().isEmpty())
+            return METHOD_HANDLE;
+
+        final String name = value.trim().toUpperCase().replace('-', '_');
+        if ("METHODHANDLE".equals(name))
+            return METHOD_HANDLE;
+
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown " + PROPERTY + " value '" + value + "'");
+        }
+    }
+
+    /**
+     * @param field an accessible {@link Field}
+     * @return a {@link FieldAccessor} for {@param field} using this engine
+     */
+    FieldAccessor accessorFor(Field field) {
+        if (this == METHOD_HANDLE) {
+            final FieldAccessor accessor = FieldAccessor.MethodHandleAccessor.tryCreate(field);
+            if (accessor != null)
+                return accessor;
+        }
+        return new FieldAccessor.ReflectionAccessor(field);
+    }
+}
@@ -0,0 +1,312 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+import org.tvenceslau.java.Cloneable.Cloneable.BatchUpdateSpecification;
+import org.tvenceslau.java.Cloneable.Cloneable.DoubleBatchUpdateSpecification;
+import org.tvenceslau.java.Cloneable.Cloneable.IntBatchUpdateSpecification;
+import org.tvenceslau.java.Cloneable.Cloneable.LongBatchUpdateSpecification;
+import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;
+
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Serves batch specifications ({@link BatchUpdateSpecification} and its primitive variants) a whole range of
+ * indexes at a time, for {@link BulkCloner}.
+ * <p>While a range is {@link #open(int, int) open} on a thread, the first update of a value through a batch
+ * specification computes the results of every index of the range, and the clones of the other indexes pick theirs
+ * up from there. Results are kept per specification and original value, until the range is closed, and each is
+ * handed out once: equal values in several fields of one clone get a batch each, never a shared result.
+ * Every other specification, and every index out of the range, goes through
+ * {@link UpdateSpecification#update(Object, int)} as usual</p>
+ */
+final class BatchUpdates {
+
+    /**
+     * The longest range computed at once, so the results waiting for their clone stay small
+     */
+    static final int MAX_RANGE = 256;
+
+    private static final ThreadLocal<Window> WINDOW = new ThreadLocal<>();
+
+    private BatchUpdates() {
+    }
+
+    /**
+     * Opens [{@param from}, {@param to}) on the current thread
+     *
+     * @return the range it replaces, to give back to {@link #close(Window)}
+     */
+    static Window open(int from, int to) {
+        final Window previous = WINDOW.get();
+        WINDOW.set(new Window(from, to));
+        return previous;
+    }
+
+    static void close(Window previous) {
+        if (previous == null)
+            WINDOW.remove();
+        else
+            WINDOW.set(previous);
+    }
+
+    static boolean isBatch(UpdateSpecification<?> spec) {
+        return spec instanceof BatchUpdateSpecification || spec instanceof IntBatchUpdateSpecification
+                || spec instanceof LongBatchUpdateSpecification || spec instanceof DoubleBatchUpdateSpecification;
+    }
+
+    /**
+     * @return true if {@param spec} is the batch variant of {@param type}'s primitive, so
+     * {@link #updatePrimitive(FieldAction, Object, Object, int)} can update its fields
+     */
+    static boolean isPrimitiveBatch(Class<?> type, Class<?> spec) {
+        return spec != null && ((type == int.class && IntBatchUpdateSpecification.class.isAssignableFrom(spec))
+                || (type == long.class && LongBatchUpdateSpecification.class.isAssignableFrom(spec))
+                || (type == double.class && DoubleBatchUpdateSpecification.class.isAssignableFrom(spec)));
+    }
+
+    /**
+     * @return the open range of the current thread, if {@param index} is in it
+     */
+    static Window window(int index) {
+        final Window window = WINDOW.get();
+        return window != null && index >= window.from && index < window.to ? window : null;
+    }
+
+    /**
+     * Sets {@param action}'s primitive field on {@param destination} to the update of its value on {@param origin},
+     * without boxing either
+     *
+     * @param action a field whose {@link FieldAction#primitiveBatch} is true
+     * @return false, with nothing set, when {@param index} isn't in the open range
+     */
+    static boolean updatePrimitive(FieldAction action, Object origin, Object destination, int index) {
+        final Window window = window(index);
+        if (window == null)
+            return false;
+
+        final UpdateSpecification<?> spec = Cloneables.getSpec(action.spec);
+        if (CloneMetrics.active)
+            CloneMetrics.specificationApplied(spec.getClass());
+
+        final FieldAccessor accessor = action.accessor;
+        if (spec instanceof IntBatchUpdateSpecification)
+            accessor.setInt(destination, window.updateInt((IntBatchUpdateSpecification) spec, accessor.getInt(origin), index));
+        else if (spec instanceof LongBatchUpdateSpecification)
+            accessor.setLong(destination, window.updateLong((LongBatchUpdateSpecification) spec, accessor.getLong(origin), index));
+        else
+            accessor.setDouble(destination, window.updateDouble((DoubleBatchUpdateSpecification) spec, accessor.getDouble(origin), index));
+        return true;
+    }
+
+    /**
+     * A range of indexes being cloned by the current thread, with the results computed for it so far
+     */
+    static final class Window {
+
+        private final int from;
+        private final int to;
+
+        /**
+         * per specification: a {@link HashMap} of original value to its {@link Batch}es, or a {@link PrimitiveResults}
+         */
+        private final Map<UpdateSpecification<?>, Object> results = new IdentityHashMap<>();
+
+        private Window(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @param spec one that {@link #isBatch(UpdateSpecification)}
+         * @return what {@param spec} makes of {@param property} for {@param index}
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        <T> T update(T property, UpdateSpecification<T> spec, int index) {
+            if (spec instanceof IntBatchUpdateSpecification)
+                return (T) Integer.valueOf(updateInt((IntBatchUpdateSpecification) spec,
+                        property == null ? 0 : (Integer) property, index));
+            if (spec instanceof LongBatchUpdateSpecification)
+                return (T) Long.valueOf(updateLong((LongBatchUpdateSpecification) spec,
+                        property == null ? 0 : (Long) property, index));
+            if (spec instanceof DoubleBatchUpdateSpecification)
+                return (T) Double.valueOf(updateDouble((DoubleBatchUpdateSpecification) spec,
+                        property == null ? 0 : (Double) property, index));
+
+            final int slot = index - from;
+            Map<Object, Batch> byValue = (Map<Object, Batch>) results.get(spec);
+            if (byValue == null)
+                results.put(spec, byValue = new HashMap<>());
+            final Batch first = byValue.get(property);
+            Batch batch = Batch.take(first, slot);
+            if (batch == null) {
+                final Object[] values = new Object[to - from];
+                ((BatchUpdateSpecification) spec).update(property, from, values);
+                batch = Batch.add(first, values, slot);
+                if (first == null)
+                    byValue.put(property, batch);
+            }
+            return (T) ((Object[]) batch.values)[slot];
+        }
+
+        int updateInt(IntBatchUpdateSpecification spec, int value, int index) {
+            final int slot = index - from;
+            final PrimitiveResults table = table(spec);
+            final Batch first = table.get(value);
+            Batch batch = Batch.take(first, slot);
+            if (batch == null) {
+                final int[] values = new int[to - from];
+                spec.update(value, from, values);
+                batch = Batch.add(first, values, slot);
+                if (first == null)
+                    table.put(value, batch);
+            }
+            return ((int[]) batch.values)[slot];
+        }
+
+        long updateLong(LongBatchUpdateSpecification spec, long value, int index) {
+            final int slot = index - from;
+            final PrimitiveResults table = table(spec);
+            final Batch first = table.get(value);
+            Batch batch = Batch.take(first, slot);
+            if (batch == null) {
+                final long[] values = new long[to - from];
+                spec.update(value, from, values);
+                batch = Batch.add(first, values, slot);
+                if (first == null)
+                    table.put(value, batch);
+            }
+            return ((long[]) batch.values)[slot];
+        }
+
+        double updateDouble(DoubleBatchUpdateSpecification spec, double value, int index) {
+            final int slot = index - from;
+            final PrimitiveResults table = table(spec);
+            final long key = Double.doubleToRawLongBits(value);
+            final Batch first = table.get(key);
+            Batch batch = Batch.take(first, slot);
+            if (batch == null) {
+                final double[] values = new double[to - from];
+                spec.update(value, from, values);
+                batch = Batch.add(first, values, slot);
+                if (first == null)
+                    table.put(key, batch);
+            }
+            return ((double[]) batch.values)[slot];
+        }
+
+        private PrimitiveResults table(UpdateSpecification<?> spec) {
+            PrimitiveResults table = (PrimitiveResults) results.get(spec);
+            if (table == null)
+                results.put(spec, table = new PrimitiveResults());
+            return table;
+        }
+    }
+
+    /**
+     * The results of one batch call, each handed out once: a clone with several fields holding the same value
+     * gets a result of its own for each, from as many batches, just like it gets an update call for each outside
+     * of bulk cloning
+     */
+    private static final class Batch {
+
+        /**
+         * an Object[], int[], long[] or double[]
+         */
+        final Object values;
+
+        private final boolean[] taken;
+
+        /**
+         * the next batch computed for the same specification and value, once every result of this one was needed
+         */
+        private Batch next;
+
+        private Batch(Object values, int length) {
+            this.values = values;
+            this.taken = new boolean[length];
+        }
+
+        /**
+         * @param first the batches of a specification and value, may be null
+         * @return the first of them whose result for {@param slot} hasn't been handed out yet, now handed out,
+         * or null if there is none
+         */
+        static Batch take(Batch first, int slot) {
+            for (Batch batch = first; batch != null; batch = batch.next) {
+                if (!batch.taken[slot]) {
+                    batch.taken[slot] = true;
+                    return batch;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Appends {@param values} to {@param first}'s batches, with its result for {@param slot} handed out
+         *
+         * @return the new batch
+         */
+        static Batch add(Batch first, Object values, int slot) {
+            final Batch batch = new Batch(values, Array.getLength(values));
+            batch.taken[slot] = true;
+            if (first != null) {
+                Batch last = first;
+                while (last.next != null)
+                    last = last.next;
+                last.next = batch;
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Open addressing map of primitive values (as their long bits) to their {@link Batch}es, so lookups don't box
+     */
+    private static final class PrimitiveResults {
+
+        private long[] keys = new long[8];
+        private Batch[] values = new Batch[8];
+        private int size;
+
+        Batch get(long key) {
+            final int mask = keys.length - 1;
+            for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask)
+                if (keys[slot] == key)
+                    return values[slot];
+            return null;
+        }
+
+        void put(long key, Batch value) {
+            if (++size * 2 > keys.length)
+                grow();
+            insert(key, value);
+        }
+
+        private void insert(long key, Batch value) {
+            final int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void grow() {
+            final long[] oldKeys = keys;
+            final Batch[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Batch[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldValues[i] != null)
+                    insert(oldKeys[i], oldValues[i]);
+        }
+
+        private static int slot(long key, int mask) {
+            final long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Produces N indexed clones of a template, as in 'cloneAndUpdate(index)', split across threads.
+ * <p>The template is only ever read, so it can be shared by every worker. Clone i is written to slot i of a
+ * pre-sized array, so there is no coordination between workers beyond waiting for all of them.</p>
+ * <p>The first index is always produced on the calling thread, before anything is forked, so the per class caches
+ * (plans, specifications, cloners) are already in place when the workers start.
+ * The rest is cloned in {@link BatchUpdates} ranges, for batch specifications</p>
+ *
+ * @see Cloneables#bulkClone(Cloneable, int, int, ForkJoinPool)
+ * @see Cloneables#bulkClone(Cloneable, int, int, Executor)
+ */
+final class BulkCloner {
+
+    /**
+     * How many tasks per worker the range gets split into, so faster workers can pick up the slack
+     */
+    private static final int TASKS_PER_WORKER = 8;
+
+    private BulkCloner() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Cloneable<?>> T cloneAt(T template, int index) {
+        return (T) template.cloneAndUpdate(index);
+    }
+
+    /**
+     * @param profile the {@link CloneProfile} to clone with, or null for full clones
+     */
+    static <T extends Cloneable<?>> T cloneAt(T template, int index, CloneProfile profile) {
+        return profile == null ? cloneAt(template, index) : profile.cloneAndUpdate(template, index);
+    }
+
+    static <T extends Cloneable<?>> List<T> onPool(T template, int fromIndex, int toIndex, ForkJoinPool pool) {
+        return onPool(template, fromIndex, toIndex, pool, null);
+    }
+
+    static <T extends Cloneable<?>> List<T> onPool(T template, int fromIndex, int toIndex, ForkJoinPool pool,
+                                                   CloneProfile profile) {
+        final Object[] results = start(template, fromIndex, toIndex, profile);
+        if (results.length > 1)
+            pool.invoke(new Task<>(template, profile, results, fromIndex, fromIndex + 1, toIndex,
+                    threshold(toIndex - fromIndex, pool.getParallelism())));
+        return asList(results);
+    }
+
+    static <T extends Cloneable<?>> List<T> onExecutor(T template, int fromIndex, int toIndex, Executor executor,
+                                                       int parallelism) {
+        final Object[] results = start(template, fromIndex, toIndex, null);
+        final int chunk = threshold(toIndex - fromIndex, parallelism);
+
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int from = fromIndex + 1; from < toIndex; from += chunk) {
+            final int start = from;
+            final int end = Math.min(toIndex, from + chunk);
+            futures.add(CompletableFuture.runAsync(() -> fill(template, null, results, fromIndex, start, end), executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+        return asList(results);
+    }
+
+    private static Object[] start(Cloneable<?> template, int fromIndex, int toIndex, CloneProfile profile) {
+        if (fromIndex > toIndex)
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+
+        final Object[] results = new Object[toIndex - fromIndex];
+        if (results.length > 0)
+            results[0] = cloneAt(template, fromIndex, profile);
+        return results;
+    }
+
+    private static int threshold(int count, int parallelism) {
+        return Math.max(1, count / (Math.max(1, parallelism) * TASKS_PER_WORKER));
+    }
+
+    /**
+     * Clones [{@param from}, {@param to}) a {@link BatchUpdates} range at a time, so batch specifications compute
+     * the updates of a whole range at once
+     *
+     * @param offset the index stored in results[0]
+     */
+    private static void fill(Cloneable<?> template, CloneProfile profile, Object[] results, int offset, int from,
+                             int to) {
+        for (int start = from; start < to; start += BatchUpdates.MAX_RANGE) {
+            final int end = Math.min(to, start + BatchUpdates.MAX_RANGE);
+            final BatchUpdates.Window previous = BatchUpdates.open(start, end);
+            try {
+                for (int index = start; index < end; index++)
+                    results[index - offset] = cloneAt(template, index, profile);
+            } finally {
+                BatchUpdates.close(previous);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asList(Object[] results) {
+        return (List<T>) (List<?>) Arrays.asList(results);
+    }
+
+    /**
+     * Splits [from, to) in halves until it is at most 'threshold' long
+     */
+    private static final class Task<T extends Cloneable<?>> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final T template;
+        private final CloneProfile profile;
+        private final Object[] results;
+        private final int offset;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        Task(T template, CloneProfile profile, Object[] results, int offset, int from, int to, int threshold) {
+            this.template = template;
+            this.profile = profile;
+            this.results = results;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                fill(template, profile, results, offset, from, to);
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new Task<>(template, profile, results, offset, from, middle, threshold),
+                    new Task<>(template, profile, results, offset, middle, to, threshold));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.tvenceslau.java.Cloneable;
+
+/**
+ * Limits on what a single clone may allocate: objects, bytes (as estimated by {@link CloneCost}) and depth of
+ * nested {@link Cloneable}s. Immutable.
+ * <p>Checked up front by {@link Cloneable#cloneSelf(CloneBudget)}: the graph is walked first, without allocating
+ * anything, and the walk stops at the first limit crossed. So a runaway clone fails fast, before it allocates,
+ * at the price of walking the graph twice when it doesn't.</p>
+ * <p>Or, for every clone made anywhere, {@link #enforce(CloneBudget)}: the engines then count objects and bytes
+ * as they clone, through {@link CloneMetrics}, and abort the clone as soon as it crosses a limit (depth isn't
+ * counted there). Every whole clone gets its own budget, per thread, so collections aren't cloned in parallel
+ * while a budget is enforced. Objects copied outside of a clone (a lazy clone detaching, recycled instances being
+ * refilled) don't count towards any budget.</p>
+ * <p>Either way, crossing a limit is reported as an {@link IllegalStateException}</p>
+ */
+public final class CloneBudget {
+
+    public static final CloneBudget UNLIMITED = new CloneBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    private static volatile CloneListener guard;
+
+    private final long maxObjects;
+    private final long maxBytes;
+    private final int maxDepth;
+
+    private CloneBudget(long maxObjects, long maxBytes, int maxDepth) {
+        if (maxObjects < 1 || maxBytes < 1 || maxDepth < 1)
+            throw new IllegalArgumentException("Clone budgets must be positive");
+        this.maxObjects = maxObjects;
+        this.maxBytes = maxBytes;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param maxObjects how many objects a clone may allocate
+     * @param maxBytes   roughly how many bytes a clone may allocate
+     * @param maxDepth   how many levels of nested {@link Cloneable}s a clone may go through, the cloned one included
+     */
+    public static CloneBudget of(long maxObjects, long maxBytes, int maxDepth) {
+        return new CloneBudget(maxObjects, maxBytes, maxDepth);
+    }
+
+    public CloneBudget withMaxObjects(long maxObjects) {
+        return new CloneBudget(maxObjects, maxBytes, maxDepth);
+    }
+
+    public CloneBudget withMaxBytes(long maxBytes) {
+        return new CloneBudget(maxObjects, maxBytes, maxDepth);
+    }
+
+    public CloneBudget withMaxDepth(int maxDepth) {
+        return new CloneBudget(maxObjects, maxBytes, maxDepth);
+    }
+
+    public long getMaxObjects() {
+        return maxObjects;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Enforces {@param budget} on every clone, from now on
+     *
+     * @param budget the budget, or null to stop enforcing one
+     */
+    public static synchronized void enforce(CloneBudget budget) {
+        if (guard != null)
+            CloneMetrics.removeListener(guard);
+        guard = budget == null ? null : new Guard(budget);
+        if (guard != null)
+            CloneMetrics.addListener(guard);
+    }
+
+    /**
+     * @return true while a budget is {@link #enforce(CloneBudget) enforced}
+     */
+    static boolean isEnforced() {
+        return guard != null;
+    }
+
+    IllegalStateException exceeded(Class<?> type, String what) {
+        return new IllegalStateException("Clone of " + type.getName() + " is over budget: " + what);
+    }
+
+    @Override
+    public String toString() {
+        return "CloneBudget{maxObjects=" + maxObjects + ", maxBytes=" + maxBytes + ", maxDepth=" + maxDepth + '}';
+    }
+
+    /**
+     * Counts what the clones in progress allocate, per thread, and aborts them when it gets over budget
+     */
+    private static final class Guard implements CloneListener {
+
+        private final CloneBudget budget;
+
+        /**
+         * the type being cloned, objects and bytes, of the current thread's clone in progress
+         */
+        private final ThreadLocal<Tally> tallies = ThreadLocal.withInitial(Tally::new);
+
+        Guard(CloneBudget budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        public void objectCloned(Class<?> type) {
+            if (!CloneMetrics.inFrame())
+                return;
+
+            final Tally tally = tallies.get();
+            if (tally.root == null)
+                tally.root = type;
+            add(tally, 1, ObjectSizes.shallowSize(type));
+        }
+
+        @Override
+        public void elementsCopied(Class<?> containerType, int count) {
+            if (!CloneMetrics.inFrame())
+                return;
+
+            final Tally tally = tallies.get();
+            if (tally.root == null)
+                tally.root = containerType;
+            add(tally, 1, ObjectSizes.containerSize(containerType, count));
+        }
+
+        @Override
+        public void cloned(Class<?> type, int objects, long nanos) {
+            tallies.get().reset();
+        }
+
+        @Override
+        public void updated(Class<?> type, long nanos) {
+            tallies.get().reset();
+        }
+
+        private void add(Tally tally, long objects, long bytes) {
+            tally.objects += objects;
+            tally.bytes += bytes;
+            if (tally.objects > budget.maxObjects)
+                throw budget.exceeded(tally.root, "more than " + budget.maxObjects + " objects");
+            if (tally.bytes > budget.maxBytes)
+                throw budget.exceeded(tally.root, "more than " + budget.maxBytes + " bytes");
+        }
+    }
+
+    private static final class Tally {
+        Class<?> root;
+        long objects;
+        long bytes;
+
+        void reset() {
+            root = null;
+            objects = 0;
+            bytes = 0;
+        }
+    }
+}
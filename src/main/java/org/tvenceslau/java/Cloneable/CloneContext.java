@@ -0,0 +1,72 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.util.IdentityHashMap;
+
+/**
+ * State of a single identity preserving clone, see {@link Cloneable#cloneSelf(CloneContext)}
+ * <p>Maps every original object to its one and only clone, by identity (never via equals/hashCode), so objects
+ * referenced from several places are cloned once and the clone graph keeps the same shape as the original,
+ * cycles included.</p>
+ * <p>Backed by {@link IdentityHashMap}s: open addressing over a flat array, so no entry object is allocated per
+ * mapping, which is what you want for lots of entries that only live as long as one clone.
+ * Size it up front when the graph size is roughly known, and {@link #clear()} it to reuse its tables.</p>
+ * <p>Reusing a context across several {@link Cloneable#cloneSelf(CloneContext)} calls keeps the sharing between
+ * those clones too. Not thread safe.</p>
+ */
+public final class CloneContext {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 64;
+
+    private final int expectedSize;
+    private final IdentityHashMap<Object, Object> clones;
+    private IdentityHashMap<Object, Boolean> updated;
+
+    public CloneContext() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize the number of objects expected to be cloned, to avoid rehashing
+     */
+    public CloneContext(int expectedSize) {
+        this.expectedSize = expectedSize;
+        this.clones = new IdentityHashMap<>(expectedSize);
+    }
+
+    /**
+     * @param origin an original object
+     * @return the clone already made for {@param origin} in this context, or null
+     */
+    Object cloneOf(Object origin) {
+        return clones.get(origin);
+    }
+
+    void register(Object origin, Object clone) {
+        clones.put(origin, clone);
+    }
+
+    /**
+     * @return true the first time {@param object} is seen by an update in this context
+     */
+    boolean markUpdated(Object object) {
+        if (updated == null)
+            updated = new IdentityHashMap<>(expectedSize);
+        return updated.put(object, Boolean.TRUE) == null;
+    }
+
+    /**
+     * @return the number of objects cloned so far
+     */
+    public int size() {
+        return clones.size();
+    }
+
+    /**
+     * Forgets every clone and update, keeping the allocated tables
+     */
+    public void clear() {
+        clones.clear();
+        if (updated != null)
+            updated.clear();
+    }
+}
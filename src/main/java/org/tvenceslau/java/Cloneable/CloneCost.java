@@ -0,0 +1,209 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What a {@link Cloneable#cloneSelf()} would allocate: how many objects, roughly how many bytes (see
+ * {@link ObjectSizes}), and how deep it would go.
+ * <p>Estimated by walking the graph with the same rules the engines clone by: shared fields cost nothing,
+ * containers cost their copy, {@link Cloneable.ToClone} values one object each, and nested {@link Cloneable}s
+ * their whole subtree. Like {@link Cloneable#cloneSelf()}, objects reached several times count every time, but each
+ * is only walked once. A graph with cycles is reported as {@link #isCyclic() cyclic}, since
+ * {@link Cloneable#cloneSelf()} would never end: clone those with {@link Cloneable#cloneSelf(CloneContext)}</p>
+ *
+ * @see Cloneables#estimate(Cloneable)
+ * @see CloneBudget
+ */
+public final class CloneCost {
+
+    private final long objects;
+    private final long bytes;
+    private final int depth;
+    private final boolean cyclic;
+
+    private CloneCost(long objects, long bytes, int depth, boolean cyclic) {
+        this.objects = objects;
+        this.bytes = bytes;
+        this.depth = depth;
+        this.cyclic = cyclic;
+    }
+
+    /**
+     * Estimates the cost of cloning {@param origin}, stopping as soon as it goes over {@param budget}
+     *
+     * @throws IllegalStateException when it does
+     */
+    static CloneCost estimate(Object origin, CloneBudget budget) {
+        final Walk walk = new Walk(origin, budget);
+        final long[] root = walk.node(origin, 1);
+        return new CloneCost(walk.objects, walk.bytes, (int) root[2], walk.cyclic);
+    }
+
+    public long getObjects() {
+        return objects;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the longest chain of nested {@link Cloneable}s, the cloned object included
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isCyclic() {
+        return cyclic;
+    }
+
+    @Override
+    public String toString() {
+        return "CloneCost{objects=" + objects + ", bytes=" + bytes + ", depth=" + depth
+                + (cyclic ? ", cyclic" : "") + '}';
+    }
+
+    /**
+     * Running totals of one estimate
+     */
+    private static final class Walk {
+
+        private static final long[] NOTHING = {0, 0, 0};
+
+        private final Object root;
+        private final CloneBudget budget;
+
+        /**
+         * objects, bytes and height of every subtree walked so far
+         */
+        private final IdentityHashMap<Object, long[]> subtrees = new IdentityHashMap<>();
+        private final Set<Object> path = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        long objects;
+        long bytes;
+        boolean cyclic;
+
+        Walk(Object root, CloneBudget budget) {
+            this.root = root;
+            this.budget = budget;
+        }
+
+        /**
+         * Walks the graph with an explicit stack, like {@link CloneTraversal}, so deep graphs can't overflow the
+         * thread's stack before a limit is checked
+         *
+         * @return the objects, bytes and height of {@param node}'s subtree
+         */
+        long[] node(Object node, int depth) {
+            final ArrayDeque<Frame> stack = new ArrayDeque<>();
+            long[] done = enter(node, depth, stack);
+            while (!stack.isEmpty()) {
+                final Frame frame = stack.peek();
+                if (done != null)
+                    frame.height = Math.max(frame.height, done[2]);
+
+                if (frame.next < frame.children.size()) {
+                    done = enter(frame.children.get(frame.next++), frame.depth + 1, stack);
+                    continue;
+                }
+
+                stack.pop();
+                path.remove(frame.node);
+                done = new long[]{objects - frame.objects, bytes - frame.bytes, frame.height + 1};
+                subtrees.put(frame.node, done);
+            }
+            return done;
+        }
+
+        /**
+         * Counts {@param node} itself, and pushes it to have its nested {@link Cloneable}s walked
+         *
+         * @return the objects, bytes and height of its subtree when already known (or when it closes a cycle),
+         * null when it was pushed
+         */
+        private long[] enter(Object node, int depth, ArrayDeque<Frame> stack) {
+            if (depth > budget.getMaxDepth())
+                throw budget.exceeded(root.getClass(), "nested more than " + budget.getMaxDepth() + " levels deep");
+
+            final long[] known = subtrees.get(node);
+            if (known != null) {
+                add(known[0], known[1]);
+                return known;
+            }
+            if (!path.add(node)) {
+                cyclic = true;
+                return NOTHING;
+            }
+
+            final Frame frame = new Frame(node, depth, objects, bytes);
+            add(1, ObjectSizes.shallowSize(node.getClass()));
+
+            for (FieldAction action : ClonePlan.of(node.getClass()).cloneActions) {
+                if (action.cloneKind == ClonePlan.CloneKind.SHARE)
+                    continue;
+
+                final Object value = action.accessor.get(node);
+                if (value == null)
+                    continue;
+
+                switch (action.cloneKind) {
+                    case CUSTOM:
+                        add(1, ObjectSizes.sizeOf(value));
+                        break;
+                    case CONTAINER:
+                        add(1, ObjectSizes.containerSize(value.getClass(), Containers.size(value)));
+                        if (!action.immutableElements)
+                            Containers.forEach(value, element -> {
+                                if (element instanceof Cloneable)
+                                    frame.children.add(element);
+                            });
+                        break;
+                    default:
+                        if (value instanceof Cloneable)
+                            frame.children.add(value);
+                }
+            }
+
+            stack.push(frame);
+            return null;
+        }
+
+        private void add(long objects, long bytes) {
+            this.objects += objects;
+            this.bytes += bytes;
+            if (this.objects > budget.getMaxObjects())
+                throw budget.exceeded(root.getClass(), "more than " + budget.getMaxObjects() + " objects");
+            if (this.bytes > budget.getMaxBytes())
+                throw budget.exceeded(root.getClass(), "more than " + budget.getMaxBytes() + " bytes");
+        }
+    }
+
+    /**
+     * A node being walked: its nested {@link Cloneable}s, and the totals from before it
+     */
+    private static final class Frame {
+
+        final Object node;
+        final int depth;
+        final long objects;
+        final long bytes;
+        final List<Object> children = new ArrayList<>();
+        int next;
+        long height;
+
+        Frame(Object node, int depth, long objects, long bytes) {
+            this.node = node;
+            this.depth = depth;
+            this.objects = objects;
+            this.bytes = bytes;
+        }
+    }
+}
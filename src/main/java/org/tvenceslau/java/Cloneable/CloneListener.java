@@ -0,0 +1,52 @@
+package org.tvenceslau.java.Cloneable;
+
+/**
+ * Receives what happens inside clones and updates, once registered via {@link CloneMetrics#addListener(CloneListener)}.
+ * <p>Called synchronously, on the cloning thread, so implementations must be thread safe and quick.
+ * Every method does nothing by default, override only what is needed</p>
+ */
+public interface CloneListener {
+
+    /**
+     * A {@link Cloneable} instance of {@param type} was cloned, nested ones included
+     */
+    default void objectCloned(Class<?> type) {
+    }
+
+    /**
+     * {@param count} elements (keys and values for maps) were copied from a container of {@param containerType}
+     */
+    default void elementsCopied(Class<?> containerType, int count) {
+    }
+
+    /**
+     * A {@link Cloneable.ToClone} method was called to clone an instance of {@param type}
+     */
+    default void customCloned(Class<?> type) {
+    }
+
+    /**
+     * An {@link Cloneable.UpdateSpecification} of {@param specification} was applied
+     */
+    default void specificationApplied(Class<?> specification) {
+    }
+
+    /**
+     * A whole clone finished, eg: an outermost {@link Cloneable#cloneSelf()}
+     *
+     * @param type    the class of the cloned object
+     * @param objects how many {@link Cloneable}s it created
+     * @param nanos   how long it took
+     */
+    default void cloned(Class<?> type, int objects, long nanos) {
+    }
+
+    /**
+     * A whole update finished, eg: an outermost {@link Cloneable#updateSelf(int)}
+     *
+     * @param type  the class of the updated object
+     * @param nanos how long it took
+     */
+    default void updated(Class<?> type, long nanos) {
+    }
+}
@@ -0,0 +1,212 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.util.Arrays;
+
+/**
+ * Instrumentation of clones and updates: {@link CloneListener}s get told about every object cloned, container copied,
+ * {@link Cloneable.ToClone} method and {@link Cloneable.UpdateSpecification} called, and about the time and number of
+ * objects of every whole clone/update.
+ * <ul>
+ *     <li>{@link #addListener(CloneListener)} for custom listeners</li>
+ *     <li>{@link #enableStatistics()} for per class totals, also published as JMX MBeans</li>
+ *     <li>{@link #enableFlightRecorder()} for a JFR event per clone/update</li>
+ * </ul>
+ * <p>With no listener, every hook costs a single read of a volatile flag, and no time is measured, so it can stay
+ * wired in production. Listeners see objects cloned by every engine; the build time {@link CompiledCloner}s call
+ * {@link Cloneable.ToClone} methods directly when they can, so those calls aren't reported</p>
+ * <p>Whole clones/updates are tracked per thread: work that {@link Cloneables#bulkClone(Cloneable, int)} runs on
+ * other threads is reported as clones of their own, while the elements of a collection cloned in parallel are
+ * added to the clone that reached the collection</p>
+ */
+public final class CloneMetrics {
+
+    private static final CloneListener[] NONE = new CloneListener[0];
+
+    /**
+     * in the optional 'java-jfr' sources, see {@link #enableFlightRecorder()}
+     */
+    private static final String FLIGHT_RECORDER_LISTENER = "org.tvenceslau.java.Cloneable.FlightRecorderListener";
+
+    private static volatile CloneListener[] listeners = NONE;
+
+    /**
+     * true whenever there is at least one listener, the only thing the hooks read when there is none
+     */
+    static volatile boolean active;
+
+    private static final ThreadLocal<Frame> FRAMES = ThreadLocal.withInitial(Frame::new);
+
+    private static CloneStatistics statistics;
+
+    private CloneMetrics() {
+    }
+
+    public static synchronized void addListener(CloneListener listener) {
+        final CloneListener[] current = listeners;
+        final CloneListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+        active = true;
+    }
+
+    public static synchronized void removeListener(CloneListener listener) {
+        final CloneListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != listener)
+                continue;
+
+            final CloneListener[] updated = new CloneListener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            listeners = updated;
+            active = updated.length > 0;
+            return;
+        }
+    }
+
+    /**
+     * Starts keeping per class totals, registered as MBeans under {@value CloneStatistics#DOMAIN}
+     *
+     * @return the statistics, the same instance on every call
+     */
+    public static synchronized CloneStatistics enableStatistics() {
+        if (statistics == null) {
+            statistics = new CloneStatistics(true);
+            addListener(statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Starts committing a JFR event for every whole clone and update, when the JVM has the Flight Recorder API
+     * (JDK 11+, or 8u262+).
+     * <p>The events live in the optional 'java-jfr' sources, only built on JDKs that have that API, so they are
+     * looked up by name: the core sources still build against plain Java 8</p>
+     *
+     * @return the listener, to {@link #removeListener(CloneListener)} it
+     * @throws UnsupportedOperationException when the JVM has no Flight Recorder API, or the events weren't built
+     */
+    public static CloneListener enableFlightRecorder() {
+        final CloneListener listener;
+        try {
+            Class.forName("jdk.jfr.Event");
+            listener = (CloneListener) Class.forName(FLIGHT_RECORDER_LISTENER).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new UnsupportedOperationException("This JVM has no Flight Recorder API, or its events weren't built");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the Flight Recorder listener", e);
+        }
+
+        addListener(listener);
+        return listener;
+    }
+
+    /*
+     * Hooks, only to be called after checking 'active'
+     */
+
+    /**
+     * Entering a clone/update, which may be nested in another one
+     *
+     * @return when it started
+     */
+    static long enter() {
+        FRAMES.get().depth++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Leaving a clone, reported if it is the outermost one
+     */
+    static void exitClone(Class<?> type, long start) {
+        final long nanos = System.nanoTime() - start;
+        final Frame frame = FRAMES.get();
+        if (--frame.depth > 0)
+            return;
+
+        final int objects = frame.objects;
+        frame.objects = 0;
+        for (CloneListener listener : listeners)
+            listener.cloned(type, objects, nanos);
+    }
+
+    /**
+     * Leaving an update, reported if it is the outermost one
+     */
+    static void exitUpdate(Class<?> type, long start) {
+        final long nanos = System.nanoTime() - start;
+        if (--FRAMES.get().depth > 0)
+            return;
+
+        for (CloneListener listener : listeners)
+            listener.updated(type, nanos);
+    }
+
+    /**
+     * @return true while the current thread is in a clone/update
+     */
+    static boolean inFrame() {
+        return FRAMES.get().depth > 0;
+    }
+
+    /**
+     * Starts a share of a clone on a worker thread: until {@link #leaveWorker(Frame)}, the clones it makes count
+     * towards a frame of their own, which is never reported as a whole clone
+     *
+     * @return the worker's own frame, to give back to {@link #leaveWorker(Frame)}
+     */
+    static Frame enterWorker() {
+        final Frame previous = FRAMES.get();
+        final Frame share = new Frame();
+        share.depth = 1;
+        FRAMES.set(share);
+        return previous;
+    }
+
+    /**
+     * @param previous what {@link #enterWorker()} returned
+     * @return how many objects were cloned since {@link #enterWorker()}, to give to {@link #objectsCloned(int)} on
+     * the thread that forked the work
+     */
+    static int leaveWorker(Frame previous) {
+        final int objects = FRAMES.get().objects;
+        FRAMES.set(previous);
+        return objects;
+    }
+
+    /**
+     * Adds objects cloned on other threads to the current thread's clone in progress
+     */
+    static void objectsCloned(int objects) {
+        FRAMES.get().objects += objects;
+    }
+
+    static void objectCloned(Class<?> type) {
+        FRAMES.get().objects++;
+        for (CloneListener listener : listeners)
+            listener.objectCloned(type);
+    }
+
+    static void elementsCopied(Class<?> containerType, int count) {
+        for (CloneListener listener : listeners)
+            listener.elementsCopied(containerType, count);
+    }
+
+    static void customCloned(Class<?> type) {
+        for (CloneListener listener : listeners)
+            listener.customCloned(type);
+    }
+
+    static void specificationApplied(Class<?> specification) {
+        for (CloneListener listener : listeners)
+            listener.specificationApplied(specification);
+    }
+
+    /**
+     * Per thread state of the clones/updates in progress
+     */
+    static final class Frame {
+        int depth;
+        int objects;
+    }
+}
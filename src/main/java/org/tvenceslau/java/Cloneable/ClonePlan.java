@@ -0,0 +1,175 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.List;
+
+/**
+ * Immutable description of how to clone/update instances of a given class.
+ * <p>Holds an ordered list of {@link FieldAction}s across the whole class hierarchy (declared fields first, then the
+ * superclass', just as the recursive implementation used to walk them), with static and synthetic fields removed
+ * and all the {@link Cloneable} annotations resolved up front.</p>
+ * <p>Plans are built once per class and cached, so the reflection and annotation scanning cost is only paid
+ * the first time a class is seen</p>
+ *
+ * @see Cloneables#deepClone(Class, Object, Object)
+ * @see Cloneables#update(Class, Cloneable, int)
+ */
+final class ClonePlan {
+
+    private static final ClassValue<ClonePlan> PLANS = new ClassValue<ClonePlan>() {
+        @Override
+        protected ClonePlan computeValue(Class<?> type) {
+            return new ClonePlan(type);
+        }
+    };
+
+    private static final FieldAction[] NO_ACTIONS = new FieldAction[0];
+
+    final Class<?> type;
+
+    /**
+     * Every instance field in the hierarchy, in cloning order
+     */
+    final FieldAction[] cloneActions;
+
+    /**
+     * Only the fields that can be affected by {@link Cloneables#update(Class, Cloneable, int)}
+     */
+    final FieldAction[] updateActions;
+
+    private ClonePlan(Class<?> type) {
+        this.type = type;
+
+        final List<FieldAction> clone = new ArrayList<>();
+        final List<FieldAction> update = new ArrayList<>();
+
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic())
+                    continue;
+
+                final FieldAction action = new FieldAction(field);
+                clone.add(action);
+                if (action.updateKind != UpdateKind.NONE)
+                    update.add(action);
+            }
+        }
+
+        this.cloneActions = clone.toArray(NO_ACTIONS);
+        this.updateActions = update.toArray(NO_ACTIONS);
+    }
+
+    /**
+     * @param clazz the class to get the plan for
+     * @return the cached plan for {@param clazz}, building it if this is the first time the class is seen
+     */
+    static ClonePlan of(Class<?> clazz) {
+        return PLANS.get(clazz);
+    }
+
+    /**
+     * What to do with a field's value when cloning
+     */
+    enum CloneKind {
+        /** {@link Cloneable.NotToClone} fields, primitives and {@link ImmutableTypes}: value is copied as is */
+        SHARE,
+        /** {@link Collection}, {@link Map} and array fields: elements are cloned into a new container, see {@link Containers} */
+        CONTAINER,
+        /** {@link Cloneable.ToClone} fields: value is cloned via the annotated method */
+        CUSTOM,
+        /** everything else: value is cloned if it is {@link Cloneable}, shared otherwise */
+        SINGLE
+    }
+
+    /**
+     * What to do with a field's value when updating
+     */
+    enum UpdateKind {
+        /** {@link Cloneable.NotToUpdate} fields or fields that can never be updated */
+        NONE,
+        /** {@link Collection}, {@link Map} and array fields: {@link Cloneable} elements are updated, unless a {@link Map} or
+         * array has a {@link Cloneable.ToUpdate#spec()}, which makes it {@link #SINGLE} */
+        CONTAINER,
+        /** everything else: value is updated if it is {@link Cloneable}, or via its {@link UpdateSpecification} */
+        SINGLE
+    }
+
+    /**
+     * A single field of the plan, with its annotations already resolved
+     */
+    static final class FieldAction {
+
+        final Field field;
+        final FieldAccessor accessor;
+        final CloneKind cloneKind;
+        final UpdateKind updateKind;
+
+        /**
+         * true for {@link CloneKind#CONTAINER}s declared to only hold {@link ImmutableTypes}: copied in bulk
+         */
+        final boolean immutableElements;
+
+        /**
+         * the resolved {@link Cloneable.ToClone} when {@link #cloneKind} is {@link CloneKind#CUSTOM}
+         */
+        final CustomCloner custom;
+
+        /**
+         * the {@link Cloneable.ToUpdate#spec()} or null if the field is not annotated
+         */
+        final Class<? extends UpdateSpecification<?>> spec;
+
+        /**
+         * true for int, long and double fields updated by the matching primitive batch specification, eg:
+         * {@link Cloneable.IntBatchUpdateSpecification}: updated without boxing while bulk cloning
+         */
+        final boolean primitiveBatch;
+
+        private FieldAction(Field field) {
+            field.setAccessible(true);
+
+            this.field = field;
+            this.accessor = FieldAccessor.of(field);
+
+            final Class<?> classType = field.getType();
+            final boolean immutable = ImmutableTypes.isImmutable(classType);
+            final boolean container = !immutable && Containers.isContainer(classType);
+            this.immutableElements = container && Containers.holdsOnlyImmutables(field.getGenericType());
+
+            final boolean toClone = field.isAnnotationPresent(Cloneable.ToClone.class);
+            if (field.isAnnotationPresent(Cloneable.NotToClone.class) || classType.isPrimitive()
+                    || (immutable && !toClone))
+                this.cloneKind = CloneKind.SHARE;
+            else if (container)
+                this.cloneKind = CloneKind.CONTAINER;
+            else if (toClone)
+                this.cloneKind = CloneKind.CUSTOM;
+            else
+                this.cloneKind = CloneKind.SINGLE;
+            this.custom = cloneKind == CloneKind.CUSTOM ? CustomCloner.of(field) : null;
+
+            final Cloneable.ToUpdate toUpdate = field.getAnnotation(Cloneable.ToUpdate.class);
+            this.spec = toUpdate != null ? toUpdate.spec() : null;
+            this.primitiveBatch = BatchUpdates.isPrimitiveBatch(classType, spec);
+            if (field.isAnnotationPresent(Cloneable.NotToUpdate.class))
+                this.updateKind = UpdateKind.NONE;
+            // Maps and arrays with a specification get it applied to them as a whole, Collections have their elements updated
+            else if (container && (spec == null || Collection.class.isAssignableFrom(classType)))
+                // arrays of primitives, Strings, ... have nothing to update
+                this.updateKind = immutableElements
+                        || (classType.isArray() && !Containers.canHoldCloneable(classType.getComponentType()))
+                        ? UpdateKind.NONE
+                        : UpdateKind.CONTAINER;
+            else if (this.spec != null || Containers.canHoldCloneable(classType))
+                this.updateKind = UpdateKind.SINGLE;
+            else
+                this.updateKind = UpdateKind.NONE;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A named, runtime choice of how deep to clone: field paths marked {@link Mode#DEEP deep} are cloned as usual,
+ * {@link Mode#SHALLOW shallow} ones are shared with the original and {@link Mode#SKIP skipped} ones are left
+ * unset (null, 0, false). Lets every call site pay only for the part of a model it actually needs, without touching
+ * the model's {@link Cloneable.NotToClone} annotations.
+ * <p>Paths are field names separated by dots, from the cloned object, eg: 'positions' or 'positions.history'.
+ * Container elements are transparent, so 'positions.history' is the history of every element of 'positions'.
+ * The most specific path wins, and unlisted fields get their parent's mode, the profile's default mode at the top.
+ * Objects on the way to a listed path are always cloned, so the rule can apply.</p>
+ * <p>Whole subtrees that end up deep are cloned by the usual engine, whatever it is. The rest runs from plans
+ * compiled once per path and class. Shared values are never updated by {@link Cloneable.ToUpdate}, since they
+ * still belong to the original, except immutable ones, which are always "shared" anyway.</p>
+ * <p>Define profiles in code, via {@link #named(String, Mode)}, or in config, via
+ * {@link #fromProperties(String, Properties)}. Rules can't change once the profile has been used.
+ * Paths are checked against the fields of every class a profile is first used with, and of the declared types of
+ * those fields: unknown fields fail with an {@link IllegalArgumentException}. Fields only subclasses of a declared
+ * type may have (eg: of the elements of a List&lt;Base&gt;) can't be checked up front, those are taken as is</p>
+ *
+ * @see Cloneable#cloneSelf(CloneProfile)
+ * @see Cloneables#bulkClone(Cloneable, int, int, CloneProfile)
+ */
+public final class CloneProfile {
+
+    public enum Mode {
+        /** cloned, like any field */
+        DEEP,
+        /** shared with the original */
+        SHALLOW,
+        /** left unset */
+        SKIP
+    }
+
+    private static final Map<String, CloneProfile> PROFILES = new ConcurrentHashMap<>();
+
+    /**
+     * the key of a profile's default mode, in {@link #fromProperties(String, Properties)}
+     */
+    private static final String DEFAULT_KEY = "*";
+
+    private final String name;
+    private final Mode defaultMode;
+    private final Path root = new Path();
+    private volatile boolean used;
+
+    /**
+     * the classes this profile's paths were checked against, as roots
+     */
+    private final ClassValue<Boolean> checked = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            check(root, Collections.singletonList(type), true);
+            return Boolean.TRUE;
+        }
+    };
+
+    private CloneProfile(String name, Mode defaultMode) {
+        this.name = name;
+        this.defaultMode = defaultMode;
+    }
+
+    /**
+     * @param name        what the profile is known by, see {@link #register()}
+     * @param defaultMode what happens to the fields no path mentions
+     * @return a new profile, without any path
+     */
+    public static CloneProfile named(String name, Mode defaultMode) {
+        return new CloneProfile(name, defaultMode);
+    }
+
+    /**
+     * @return a new profile that clones everything not mentioned otherwise
+     */
+    public static CloneProfile named(String name) {
+        return named(name, Mode.DEEP);
+    }
+
+    /**
+     * Reads and {@link #register()}s the profile {@param name} from {@param properties}: '&lt;name&gt;.*' is the
+     * default mode and '&lt;name&gt;.&lt;path&gt;' the mode of a path, as 'deep', 'shallow' or 'skip'.
+     * Eg: 'pricing.*=shallow' and 'pricing.positions=deep'
+     *
+     * @throws IllegalArgumentException for unknown modes
+     */
+    public static CloneProfile fromProperties(String name, Properties properties) {
+        final String prefix = name + ".";
+        final String defaultMode = properties.getProperty(prefix + DEFAULT_KEY);
+        final CloneProfile profile = named(name, defaultMode == null ? Mode.DEEP : mode(defaultMode));
+
+        for (String key : properties.stringPropertyNames())
+            if (key.startsWith(prefix) && !key.equals(prefix + DEFAULT_KEY))
+                profile.path(key.substring(prefix.length()), mode(properties.getProperty(key)));
+        return profile.register();
+    }
+
+    /**
+     * @return the profile {@link #register()}ed as {@param name}
+     * @throws IllegalArgumentException when there is none
+     */
+    public static CloneProfile forName(String name) {
+        final CloneProfile profile = PROFILES.get(name);
+        if (profile == null)
+            throw new IllegalArgumentException("No clone profile named " + name);
+        return profile;
+    }
+
+    /**
+     * Makes this profile available through {@link #forName(String)}, replacing any other with the same name
+     *
+     * @return this
+     */
+    public CloneProfile register() {
+        PROFILES.put(name, this);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param paths field paths to clone
+     * @return this
+     */
+    public CloneProfile deep(String... paths) {
+        return paths(Mode.DEEP, paths);
+    }
+
+    /**
+     * @param paths field paths to share with the original
+     * @return this
+     */
+    public CloneProfile shallow(String... paths) {
+        return paths(Mode.SHALLOW, paths);
+    }
+
+    /**
+     * @param paths field paths to leave unset
+     * @return this
+     */
+    public CloneProfile skip(String... paths) {
+        return paths(Mode.SKIP, paths);
+    }
+
+    private CloneProfile paths(Mode mode, String... paths) {
+        for (String path : paths)
+            path(path, mode);
+        return this;
+    }
+
+    private synchronized void path(String path, Mode mode) {
+        if (used)
+            throw new IllegalStateException("Clone profile " + name + " is already in use, its paths can't change");
+
+        Path current = root;
+        for (String field : path.split("\\.")) {
+            Path next = current.children.get(field);
+            if (next == null)
+                current.children.put(field, next = new Path());
+            current = next;
+        }
+        current.explicit = mode;
+    }
+
+    /**
+     * Settles every path's modes, once and for all
+     */
+    private synchronized void freeze() {
+        if (used)
+            return;
+        root.resolve(defaultMode);
+        root.mode = Mode.DEEP;
+        used = true;
+    }
+
+    /**
+     * @param types the classes {@param path}'s value may be of
+     * @param exact true if it can't be of any other class, so its fields are all known
+     * @throws IllegalArgumentException for a path naming a field none of {@param types} has, when exact
+     */
+    private void check(Path path, List<Class<?>> types, boolean exact) {
+        for (Map.Entry<String, Path> child : path.children.entrySet()) {
+            Field field = null;
+            for (Class<?> type : types)
+                if (Cloneable.class.isAssignableFrom(type))
+                    for (FieldAction action : ClonePlan.of(type).cloneActions)
+                        if (action.field.getName().equals(child.getKey()))
+                            field = action.field;
+
+            if (field == null) {
+                if (exact)
+                    throw new IllegalArgumentException("Clone profile " + name + ": no field '" + child.getKey()
+                            + "' in " + types);
+                // maybe a subclass's
+                continue;
+            }
+
+            // the field's type, or its elements' when it is a container
+            final List<Class<?>> declared = new ArrayList<>();
+            boolean known = true;
+            if (field.getType().isArray())
+                declared.add(field.getType().getComponentType());
+            else if (Containers.isContainer(field.getType())) {
+                final Type generic = field.getGenericType();
+                if (generic instanceof ParameterizedType)
+                    for (Type argument : ((ParameterizedType) generic).getActualTypeArguments())
+                        if (argument instanceof Class)
+                            declared.add((Class<?>) argument);
+                        else
+                            known = false;
+                else
+                    known = false;
+            } else
+                declared.add(field.getType());
+
+            for (Class<?> type : declared)
+                known &= type.isPrimitive() || Modifier.isFinal(type.getModifiers());
+            check(child.getValue(), declared, known && !declared.isEmpty());
+        }
+    }
+
+    private static Mode mode(String mode) {
+        try {
+            return Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown clone profile mode " + mode);
+        }
+    }
+
+    /**
+     * What backs {@link Cloneable#cloneSelf(CloneProfile)}
+     */
+    <T> T clone(Object origin) {
+        return cloneWith(origin, false, 0);
+    }
+
+    /**
+     * What backs {@link Cloneable#cloneAndUpdate(int, CloneProfile)}
+     */
+    <T> T cloneAndUpdate(Object origin, int index) {
+        return cloneWith(origin, true, index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cloneWith(Object origin, boolean update, int index) {
+        if (!used)
+            freeze();
+        checked.get(origin.getClass());
+        if (!CloneMetrics.active)
+            return (T) node(origin, root, update, index);
+
+        final long start = CloneMetrics.enter();
+        try {
+            return (T) node(origin, root, update, index);
+        } finally {
+            CloneMetrics.exitClone(origin.getClass(), start);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Object node(Object origin, Path path, boolean update, int index) {
+        if (path.plain())
+            return update ? ((Cloneable) origin).cloneAndUpdate(index) : ((Cloneable) origin).cloneSelf();
+
+        final Object clone = Instantiators.newInstance(origin.getClass());
+        if (CloneMetrics.active)
+            CloneMetrics.objectCloned(origin.getClass());
+
+        for (Step step : path.steps.get(origin.getClass())) {
+            final FieldAction action = step.action;
+
+            switch (step.child.mode) {
+                case SKIP:
+                    break;
+                case SHALLOW:
+                    // immutable, so sharing it is what cloning it does, updates included
+                    if (update && step.immutable)
+                        Cloneables.cloneAndUpdateField(action, origin, clone, index);
+                    else
+                        action.accessor.copy(origin, clone);
+                    break;
+                default:
+                    if (step.child.plain() || action.cloneKind == ClonePlan.CloneKind.SHARE
+                            || action.cloneKind == ClonePlan.CloneKind.CUSTOM
+                            || (action.cloneKind == ClonePlan.CloneKind.CONTAINER && action.immutableElements)) {
+                        if (update)
+                            Cloneables.cloneAndUpdateField(action, origin, clone, index);
+                        else
+                            Cloneables.cloneField(action, origin, clone);
+                        break;
+                    }
+
+                    final Object value = action.accessor.get(origin);
+                    if (action.cloneKind == ClonePlan.CloneKind.CONTAINER) {
+                        final Object copy = value == null ? null
+                                : Containers.copy(value, element -> element(element, step.child, update, index));
+                        // a Map or array with a specification of its own
+                        action.accessor.set(clone, update && action.updateKind == ClonePlan.UpdateKind.SINGLE
+                                ? Cloneables.updateSingleField(copy, action, index)
+                                : copy);
+                    } else if (value instanceof Cloneable)
+                        action.accessor.set(clone, node(value, step.child, update, index));
+                    else if (update)
+                        Cloneables.cloneAndUpdateField(action, origin, clone, index);
+                    else
+                        Cloneables.cloneField(action, origin, clone);
+            }
+        }
+        return clone;
+    }
+
+    private static Object element(Object element, Path path, boolean update, int index) {
+        return element instanceof Cloneable ? node(element, path, update, index) : element;
+    }
+
+    /**
+     * A node of the profile's path tree, with the plans compiled for every class reached through it
+     */
+    private static final class Path {
+
+        final Map<String, Path> children = new HashMap<>();
+
+        /**
+         * the mode given to this path, if any
+         */
+        Mode explicit;
+
+        /**
+         * what happens to this path's own value
+         */
+        Mode mode;
+
+        /**
+         * what happens to the fields of its value that have no path of their own
+         */
+        Mode fallback;
+
+        final ClassValue<Step[]> steps = new ClassValue<Step[]>() {
+            @Override
+            protected Step[] computeValue(Class<?> type) {
+                final FieldAction[] actions = ClonePlan.of(type).cloneActions;
+                final Step[] steps = new Step[actions.length];
+                for (int i = 0; i < actions.length; i++) {
+                    Path child = children.get(actions[i].field.getName());
+                    if (child == null)
+                        child = leaf(fallback);
+                    steps[i] = new Step(actions[i], child);
+                }
+                return steps;
+            }
+        };
+
+        Path() {
+        }
+
+        private Path(Mode mode) {
+            this.explicit = mode;
+            this.mode = mode;
+            this.fallback = mode;
+        }
+
+        /**
+         * @param inherited the fallback of the parent path
+         */
+        void resolve(Mode inherited) {
+            mode = explicit == null ? Mode.DEEP : explicit;
+            fallback = explicit == null ? inherited : explicit;
+            for (Path child : children.values())
+                child.resolve(fallback);
+        }
+
+        /**
+         * @return true if everything from here on is cloned as usual
+         */
+        boolean plain() {
+            return mode == Mode.DEEP && fallback == Mode.DEEP && children.isEmpty();
+        }
+
+        private static final Path DEEP = new Path(Mode.DEEP);
+        private static final Path SHALLOW = new Path(Mode.SHALLOW);
+        private static final Path SKIP = new Path(Mode.SKIP);
+
+        static Path leaf(Mode mode) {
+            return mode == Mode.DEEP ? DEEP : mode == Mode.SHALLOW ? SHALLOW : SKIP;
+        }
+    }
+
+    private static final class Step {
+
+        final FieldAction action;
+        final Path child;
+
+        /**
+         * true for shared primitives and {@link ImmutableTypes}, which a shallow step still updates. Not for other
+         * {@link Cloneable.NotToClone} values, which belong to the original
+         */
+        final boolean immutable;
+
+        Step(FieldAction action, Path child) {
+            this.action = action;
+            this.child = child;
+            final Class<?> type = action.field.getType();
+            this.immutable = action.cloneKind == ClonePlan.CloneKind.SHARE
+                    && (type.isPrimitive() || ImmutableTypes.isImmutable(type));
+        }
+    }
+}
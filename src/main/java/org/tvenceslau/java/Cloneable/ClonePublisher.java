@@ -0,0 +1,167 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the clones of an {@link IndexedClones} to subscribers, with backpressure: a clone is only made once a
+ * subscriber has requested it.
+ * <p>Follows the Reactive Streams rules ({@code java.util.concurrent.Flow} from Java 9 on), with its own
+ * {@link Subscriber} and {@link Subscription}, since this library still targets Java 8. Their methods match
+ * {@code Flow}'s one for one, so adapting is a couple of lambdas.</p>
+ * <p>Every subscription emits on the given {@link Executor}, one task at a time, so its signals are never concurrent</p>
+ *
+ * @see IndexedClones#publisher(Executor)
+ */
+public final class ClonePublisher<T extends Cloneable<?>> {
+
+    /**
+     * Same as {@code Flow.Subscriber}
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Same as {@code Flow.Subscription}
+     */
+    public interface Subscription {
+
+        /**
+         * Asks for {@param n} more clones. 0 or less cancels the subscription with an {@link IllegalArgumentException}
+         */
+        void request(long n);
+
+        void cancel();
+    }
+
+    private final IndexedClones<T> clones;
+    private final int fromIndex;
+    private final int toIndex;
+    private final Executor executor;
+
+    ClonePublisher(IndexedClones<T> clones, int fromIndex, int toIndex, Executor executor) {
+        this.clones = clones;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a new subscription over the whole range. {@link Subscriber#onSubscribe(Subscription)} is called right
+     * away, on the calling thread, everything else on the executor
+     */
+    public void subscribe(Subscriber<? super T> subscriber) {
+        final Emitter emitter = new Emitter(subscriber);
+        subscriber.onSubscribe(emitter);
+        // empty ranges complete without any request
+        emitter.schedule();
+    }
+
+    /**
+     * A single subscription. Only ever one drain task is scheduled: requests made while it runs are picked up by the
+     * same task, so the subscriber can request from within onNext without recursing
+     */
+    private final class Emitter implements Subscription, Runnable {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalid;
+
+        /**
+         * only touched by the drain task
+         */
+        private int next = fromIndex;
+        private boolean done;
+
+        Emitter(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0)
+                invalid = new IllegalArgumentException("Requested " + n + " clones, must be at least 1");
+            else
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        void schedule() {
+            if (pending.getAndIncrement() == 0)
+                executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done || cancelled)
+                return;
+            if (invalid != null) {
+                finish(invalid);
+                return;
+            }
+
+            final long demand = requested.get();
+            long emitted = 0;
+            while (emitted < demand && next < toIndex) {
+                if (cancelled)
+                    return;
+
+                final T clone;
+                try {
+                    clone = clones.produce(next++);
+                } catch (Throwable t) {
+                    finish(t);
+                    return;
+                }
+                try {
+                    subscriber.onNext(clone);
+                } catch (Throwable t) {
+                    // a subscriber that throws is done with the subscription
+                    finish(t);
+                    return;
+                }
+                emitted++;
+            }
+
+            if (next >= toIndex)
+                finish(null);
+            else if (emitted > 0 && demand != Long.MAX_VALUE)
+                requested.addAndGet(-emitted);
+        }
+
+        private void finish(Throwable error) {
+            done = true;
+            if (cancelled)
+                return;
+            cancelled = true;
+            if (error == null)
+                subscriber.onComplete();
+            else
+                subscriber.onError(error);
+        }
+    }
+}
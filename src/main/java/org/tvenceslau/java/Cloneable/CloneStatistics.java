@@ -0,0 +1,185 @@
+package org.tvenceslau.java.Cloneable;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per class totals of everything a {@link CloneListener} hears about, see {@link CloneMetrics#enableStatistics()}
+ * <p>Counters are {@link LongAdder}s, so threads cloning at the same time don't contend on them. Every class gets its
+ * own {@link ClassStatisticsMXBean}, registered in the platform MBean server the first time it shows up, under
+ * '{@value #DOMAIN}:type=CloneStatistics,name=&lt;class name&gt;'</p>
+ */
+public final class CloneStatistics implements CloneListener {
+
+    public static final String DOMAIN = "org.tvenceslau.java.Cloneable";
+
+    private final ConcurrentHashMap<Class<?>, ClassStatistics> classes = new ConcurrentHashMap<>();
+    private final boolean publish;
+
+    /**
+     * @param publish whether to register the per class MBeans
+     */
+    CloneStatistics(boolean publish) {
+        this.publish = publish;
+    }
+
+    /**
+     * @return the totals of {@param type}, all zeros if it was never seen
+     */
+    public ClassStatisticsMXBean of(Class<?> type) {
+        final ClassStatistics statistics = classes.get(type);
+        return statistics != null ? statistics : new ClassStatistics();
+    }
+
+    /**
+     * @return the totals of every class seen so far
+     */
+    public Map<Class<?>, ClassStatisticsMXBean> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(classes));
+    }
+
+    private ClassStatistics statistics(Class<?> type) {
+        // get first: computeIfAbsent locks even when the class is already there
+        final ClassStatistics statistics = classes.get(type);
+        return statistics != null ? statistics : classes.computeIfAbsent(type, this::register);
+    }
+
+    private ClassStatistics register(Class<?> type) {
+        final ClassStatistics statistics = new ClassStatistics();
+        if (!publish)
+            return statistics;
+
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(DOMAIN + ":type=CloneStatistics,name=" + ObjectName.quote(type.getName()));
+            if (!server.isRegistered(name))
+                server.registerMBean(statistics, name);
+        } catch (JMException e) {
+            // statistics are still kept, just not published
+        }
+        return statistics;
+    }
+
+    @Override
+    public void objectCloned(Class<?> type) {
+        statistics(type).objectsCloned.increment();
+    }
+
+    @Override
+    public void elementsCopied(Class<?> containerType, int count) {
+        statistics(containerType).elementsCopied.add(count);
+    }
+
+    @Override
+    public void customCloned(Class<?> type) {
+        statistics(type).customClones.increment();
+    }
+
+    @Override
+    public void specificationApplied(Class<?> specification) {
+        statistics(specification).specificationCalls.increment();
+    }
+
+    @Override
+    public void cloned(Class<?> type, int objects, long nanos) {
+        final ClassStatistics statistics = statistics(type);
+        statistics.clones.increment();
+        statistics.cloneNanos.add(nanos);
+    }
+
+    @Override
+    public void updated(Class<?> type, long nanos) {
+        final ClassStatistics statistics = statistics(type);
+        statistics.updates.increment();
+        statistics.updateNanos.add(nanos);
+    }
+
+    /**
+     * What is published for every class
+     */
+    public interface ClassStatisticsMXBean {
+
+        /** instances of the class cloned */
+        long getObjectsCloned();
+
+        /** elements copied out of containers of the class */
+        long getElementsCopied();
+
+        /** instances of the class cloned via a {@link Cloneable.ToClone} method */
+        long getCustomClones();
+
+        /** times an {@link Cloneable.UpdateSpecification} of the class was applied */
+        long getSpecificationCalls();
+
+        /** whole clones of an instance of the class */
+        long getClones();
+
+        /** time spent on those */
+        long getCloneNanos();
+
+        /** whole updates of an instance of the class */
+        long getUpdates();
+
+        /** time spent on those */
+        long getUpdateNanos();
+    }
+
+    private static final class ClassStatistics implements ClassStatisticsMXBean {
+
+        private final LongAdder objectsCloned = new LongAdder();
+        private final LongAdder elementsCopied = new LongAdder();
+        private final LongAdder customClones = new LongAdder();
+        private final LongAdder specificationCalls = new LongAdder();
+        private final LongAdder clones = new LongAdder();
+        private final LongAdder cloneNanos = new LongAdder();
+        private final LongAdder updates = new LongAdder();
+        private final LongAdder updateNanos = new LongAdder();
+
+        @Override
+        public long getObjectsCloned() {
+            return objectsCloned.sum();
+        }
+
+        @Override
+        public long getElementsCopied() {
+            return elementsCopied.sum();
+        }
+
+        @Override
+        public long getCustomClones() {
+            return customClones.sum();
+        }
+
+        @Override
+        public long getSpecificationCalls() {
+            return specificationCalls.sum();
+        }
+
+        @Override
+        public long getClones() {
+            return clones.sum();
+        }
+
+        @Override
+        public long getCloneNanos() {
+            return cloneNanos.sum();
+        }
+
+        @Override
+        public long getUpdates() {
+            return updates.sum();
+        }
+
+        @Override
+        public long getUpdateNanos() {
+            return updateNanos.sum();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Non recursive clone/update engine.
+ * <p>Instead of recursing once per nested object (through {@link Cloneable#cloneSelf()}/{@link Cloneable#updateSelf(int)})
+ * and once per superclass, it walks the graph with an explicit work stack:</p>
+ * <ul>
+ *     <li>cloning creates an empty instance (a shell) for every {@link Cloneable} reached, wires it in straight away
+ *     and pushes the (original, shell) pair to have its fields filled later</li>
+ *     <li>updating pushes every {@link Cloneable} reached to have its fields updated later</li>
+ * </ul>
+ * <p>So memory use depends on how wide the graph is, not on the thread's stack size, and arbitrarily deep graphs
+ * (long linked structures, deep trees) can't overflow it. The rules applied are the exact same as
+ * {@link Cloneables#deepClone(Class, Object, Object)} and {@link Cloneables#update(Class, Cloneable, int)}, driven by
+ * the same {@link ClonePlan}s, but nested objects are handled here and not through their own
+ * {@link Cloneable#cloneSelf()}/{@link Cloneable#updateSelf(int)}.</p>
+ * <p>Hashed and sorted containers ({@link java.util.Set}s, {@link Map}s, ...) need their elements complete before they
+ * can hold them, so filling those (or rehashing them, when updating) is deferred: the jobs are kept aside and only run
+ * once the work stack is empty, so every shell has been filled or every object updated, whatever the order they were
+ * reached in. They run last in, first out, so containers held by the elements of another are done before it.</p>
+ * <p>With a {@link CloneContext} every object is cloned/updated once. Without one, shared objects are cloned once per
+ * reference, exactly like the recursive implementation, and cyclic graphs are not supported.</p>
+ */
+final class CloneTraversal {
+
+    private CloneTraversal() {
+    }
+
+    /**
+     * @param root    the {@link Cloneable} to clone
+     * @param context tracks what has already been cloned, or null to clone every reference
+     * @return the clone of {@param root}
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T cloneGraph(Object root, CloneContext context) {
+        // (origin, clone) pairs still to be filled, and the containers waiting for them
+        final Work work = new Work();
+
+        final Object clone = shell(root, context, work);
+        while (!work.pending.isEmpty()) {
+            final Object destination = work.pending.pop();
+            fill(work.pending.pop(), destination, context, work);
+        }
+        work.runDeferred();
+        return (T) clone;
+    }
+
+    private static void fill(Object origin, Object destination, CloneContext context, Work work) {
+        FieldAccessor accessor;
+
+        for (FieldAction action : ClonePlan.of(origin.getClass()).cloneActions) {
+            accessor = action.accessor;
+
+            switch (action.cloneKind) {
+                case SHARE:
+                    accessor.copy(origin, destination);
+                    break;
+                case CONTAINER:
+                    accessor.set(destination, action.immutableElements
+                            ? shallow(accessor.get(origin), context)
+                            : container(accessor.get(origin), context, work));
+                    break;
+                case CUSTOM:
+                    accessor.set(destination, custom(accessor.get(origin), action.custom, context));
+                    break;
+                default:
+                    accessor.set(destination, value(accessor.get(origin), context, work));
+            }
+        }
+    }
+
+    private static Object value(Object obj, CloneContext context, Work work) {
+        if (obj instanceof Cloneable)
+            return shell(obj, context, work);
+        return obj;
+    }
+
+    /**
+     * @return a new, still empty, instance for {@param origin}, queued to be filled. Or its existing clone
+     */
+    private static Object shell(Object origin, CloneContext context, Work work) {
+        if (context != null) {
+            final Object existing = context.cloneOf(origin);
+            if (existing != null)
+                return existing;
+        }
+
+        final Object clone = Cloneables.newInstance(origin.getClass(), origin);
+        if (context != null)
+            context.register(origin, clone);
+        if (CloneMetrics.active)
+            CloneMetrics.objectCloned(origin.getClass());
+
+        work.pending.push(origin);
+        work.pending.push(clone);
+        return clone;
+    }
+
+    private static Object container(Object obj, CloneContext context, Work work) {
+        if (obj == null)
+            return null;
+
+        if (context != null) {
+            final Object existing = context.cloneOf(obj);
+            if (existing != null)
+                return existing;
+        }
+
+        final Object clone = copy(obj, value -> value(value, context, work), work);
+        if (context != null)
+            context.register(obj, clone);
+        return clone;
+    }
+
+    private static Object shallow(Object obj, CloneContext context) {
+        if (obj == null || context == null)
+            return Containers.copyShallow(obj);
+
+        Object clone = context.cloneOf(obj);
+        if (clone == null)
+            context.register(obj, clone = Containers.copyShallow(obj));
+        return clone;
+    }
+
+    /**
+     * @param obj     a {@link Collection}, {@link Map}, array, or null
+     * @param element applied to every element, key and value, may hand out shells
+     * @return a copy of {@param obj}, whose elements are only added once {@param work} is done with when it is hashed
+     * or sorted
+     */
+    static Object copy(Object obj, UnaryOperator<Object> element, Work work) {
+        if (!Containers.isHashedOrSorted(obj))
+            return Containers.copy(obj, element);
+
+        if (CloneMetrics.active)
+            CloneMetrics.elementsCopied(obj.getClass(), Containers.size(obj));
+        return deferred(obj, element, work);
+    }
+
+    /**
+     * @return a new, still empty, container for the hashed or sorted {@param obj}, that only gets its elements
+     * once every shell is filled
+     */
+    private static Object deferred(Object obj, UnaryOperator<Object> element, Work work) {
+        if (obj instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) obj;
+            final Map<Object, Object> clone = Containers.newMap(map);
+            final Object[] entries = new Object[map.size() * 2];
+            work.deferred.add(() -> {
+                for (int i = 0; i < entries.length; i += 2)
+                    clone.put(entries[i], entries[i + 1]);
+            });
+
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                entries[i++] = element.apply(entry.getKey());
+                entries[i++] = element.apply(entry.getValue());
+            }
+            return clone;
+        }
+
+        final Collection<?> collection = (Collection<?>) obj;
+        final Collection<Object> clone = Containers.newCollection(collection);
+        final Object[] elements = new Object[collection.size()];
+        work.deferred.add(() -> {
+            for (Object e : elements)
+                clone.add(e);
+        });
+
+        int i = 0;
+        for (Object e : collection)
+            elements[i++] = element.apply(e);
+        return clone;
+    }
+
+    private static Object custom(Object obj, CustomCloner cloner, CloneContext context) {
+        if (obj == null || context == null)
+            return cloner.copy(obj);
+
+        Object clone = context.cloneOf(obj);
+        if (clone == null)
+            context.register(obj, clone = cloner.copy(obj));
+        return clone;
+    }
+
+    /**
+     * Containers are updated in place: the recursive implementation rebuilds them, but with the very same elements.
+     * Hashed and sorted ones are rehashed once every object is updated, or replaced by a rehashed copy when they can't
+     * be rehashed in place (eg: unmodifiable ones), like {@link Cloneables#updateContainer(Object, int)} does
+     *
+     * @param root    the {@link Cloneable} to update
+     * @param index   the clone index
+     * @param context tracks what has already been updated, or null to update every reference
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void updateGraph(Object root, int index, CloneContext context) {
+        final Work work = new Work();
+        final ArrayDeque<Object> pending = work.pending;
+        pending.push(root);
+
+        Object object;
+        Object value;
+        FieldAccessor accessor;
+
+        while (!pending.isEmpty()) {
+            object = pending.pop();
+            if (context != null && !context.markUpdated(object))
+                continue;
+
+            for (FieldAction action : ClonePlan.of(object.getClass()).updateActions) {
+                if (action.primitiveBatch && BatchUpdates.updatePrimitive(action, object, object, index))
+                    continue;
+
+                accessor = action.accessor;
+                value = accessor.get(object);
+
+                if (action.updateKind == ClonePlan.UpdateKind.CONTAINER) {
+                    if (value != null)
+                        push(object, accessor, value, work);
+                } else if (value instanceof Cloneable)
+                    pending.push(value);
+                else if (action.spec != null)
+                    accessor.set(object, Cloneables.updateProperty(value, (UpdateSpecification) Cloneables.getSpec(action.spec), index));
+            }
+        }
+        work.runDeferred();
+    }
+
+    /**
+     * Pushes every {@link Cloneable} element of {@param container}, and defers a rehash of it when it is hashed or
+     * sorted
+     *
+     * @param owner    the object holding {@param container}
+     * @param accessor the field of {@param owner} holding it, where a rehashed copy goes when it can't be rehashed
+     */
+    private static void push(Object owner, FieldAccessor accessor, Object container, Work work) {
+        if (Containers.isHashedOrSorted(container))
+            work.deferred.add(() -> {
+                try {
+                    Containers.rehash(container);
+                } catch (UnsupportedOperationException e) {
+                    accessor.set(owner, Containers.copy(container, value -> value));
+                }
+            });
+
+        Containers.forEach(container, element -> {
+            if (element instanceof Cloneable)
+                work.pending.push(element);
+        });
+    }
+
+    /**
+     * The work stack of one traversal, and the container jobs deferred until it is empty. Also walks
+     * {@link IncrementalSnapshots}
+     */
+    static final class Work {
+
+        final ArrayDeque<Object> pending = new ArrayDeque<>();
+        final ArrayList<Runnable> deferred = new ArrayList<>();
+
+        void runDeferred() {
+            for (int i = deferred.size() - 1; i >= 0; i--)
+                deferred.get(i).run();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Pays, at startup, what every {@link Cloneable} class otherwise pays on its first clone or update: reflection and
+ * annotation scanning for its {@link ClonePlan}, {@link Cloneable.ToClone} lookups,
+ * {@link Cloneable.UpdateSpecification} instances, instantiation strategies and compiled or generated cloners.
+ * <p>Classes are given as is, or found by scanning packages (directories and jars) of the class path. Classes
+ * reachable from their fields (including the elements of parameterized containers) are warmed up as well.
+ * Classes that can't be cloned are skipped, their first clone still reports why.</p>
+ * <p>Scanning can be skipped on later runs with an index file: the {@link Cloneable} classes a scan found, each with a
+ * hash of its class file (and its superclasses'). While every hash still matches, the index is trusted as is;
+ * otherwise the packages are scanned again and the index rewritten. Classes added to the packages since are only
+ * picked up then, or once the index is deleted</p>
+ */
+public final class CloneWarmup {
+
+    private static final String PACKAGES_KEY = "@packages";
+
+    private CloneWarmup() {
+    }
+
+    /**
+     * Warms up {@param types}, and every {@link Cloneable} class reachable from their fields
+     *
+     * @return how many classes were warmed up
+     */
+    public static int classes(Class<?>... types) {
+        final Set<Class<?>> warmed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Class<?> type : types)
+            warm(type, warmed);
+        return warmed.size();
+    }
+
+    /**
+     * Warms up every {@link Cloneable} class in {@param packages}, sub packages included
+     *
+     * @return how many classes were warmed up
+     * @throws IOException when the class path can't be read
+     */
+    public static int packages(String... packages) throws IOException {
+        return classes(scan(loader(), packages).toArray(new Class<?>[0]));
+    }
+
+    /**
+     * Same as {@link #packages(String...)}, scanning only when {@param index} is missing or out of date,
+     * and writing it when it was
+     *
+     * @param index the index file, eg: next to the application's jars
+     * @return how many classes were warmed up
+     * @throws IOException when the class path can't be read or the index can't be written
+     */
+    public static int packages(Path index, String... packages) throws IOException {
+        final ClassLoader loader = loader();
+        final String packageList = String.join(",", packages);
+
+        List<Class<?>> types = read(index, packageList, loader);
+        if (types == null) {
+            types = scan(loader, packages);
+            write(index, packageList, types);
+        }
+        return classes(types.toArray(new Class<?>[0]));
+    }
+
+    private static void warm(Class<?> type, Set<Class<?>> warmed) {
+        if (!Cloneable.class.isAssignableFrom(type) || type.isInterface() || Modifier.isAbstract(type.getModifiers())
+                || ImmutableTypes.isImmutable(type) || warmed.contains(type))
+            return;
+
+        try {
+            Cloneables.prepare(type);
+        } catch (RuntimeException | LinkageError e) {
+            return;
+        }
+        warmed.add(type);
+
+        for (FieldAction action : ClonePlan.of(type).cloneActions) {
+            warm(action.field.getType(), warmed);
+            final Type generic = action.field.getGenericType();
+            if (generic instanceof ParameterizedType)
+                for (Type argument : ((ParameterizedType) generic).getActualTypeArguments())
+                    if (argument instanceof Class)
+                        warm((Class<?>) argument, warmed);
+        }
+    }
+
+    /**
+     * @return the concrete {@link Cloneable} classes in {@param packages}
+     */
+    private static List<Class<?>> scan(ClassLoader loader, String... packages) throws IOException {
+        final Set<String> names = new LinkedHashSet<>();
+        for (String name : packages) {
+            final String directory = name.replace('.', '/');
+            final Enumeration<URL> roots = loader.getResources(directory);
+            while (roots.hasMoreElements()) {
+                final URL root = roots.nextElement();
+                if ("file".equals(root.getProtocol()))
+                    scanDirectory(root, name, names);
+                else if ("jar".equals(root.getProtocol()))
+                    scanJar(root, directory, names);
+            }
+        }
+
+        final List<Class<?>> types = new ArrayList<>();
+        for (String name : names) {
+            final Class<?> type = load(name, loader);
+            if (type != null && Cloneable.class.isAssignableFrom(type) && !type.isInterface()
+                    && !Modifier.isAbstract(type.getModifiers()))
+                types.add(type);
+        }
+        return types;
+    }
+
+    private static void scanDirectory(URL root, String packageName, Set<String> names) throws IOException {
+        final Path directory;
+        try {
+            directory = Paths.get(root.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Could not read " + root, e);
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.map(directory::relativize)
+                    .map(Path::toString)
+                    .filter(CloneWarmup::isClassFile)
+                    .forEach(file -> names.add(packageName + "." + className(file.replace(directory.getFileSystem()
+                            .getSeparator(), "/"))));
+        }
+    }
+
+    private static void scanJar(URL root, String directory, Set<String> names) throws IOException {
+        final JarURLConnection connection = (JarURLConnection) root.openConnection();
+        connection.setUseCaches(false);
+        try (JarFile jar = connection.getJarFile()) {
+            final Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                final String entry = entries.nextElement().getName();
+                if (entry.startsWith(directory + "/") && isClassFile(entry))
+                    names.add(className(entry));
+            }
+        }
+    }
+
+    private static boolean isClassFile(String file) {
+        return file.endsWith(".class") && !file.endsWith("module-info.class") && !file.endsWith("package-info.class");
+    }
+
+    private static String className(String file) {
+        return file.substring(0, file.length() - ".class".length()).replace('/', '.');
+    }
+
+    /**
+     * @return the indexed classes, or null when {@param index} is missing, for other packages or out of date
+     */
+    private static List<Class<?>> read(Path index, String packageList, ClassLoader loader) throws IOException {
+        if (!Files.isRegularFile(index))
+            return null;
+
+        final Properties entries = new Properties();
+        try (Reader reader = Files.newBufferedReader(index)) {
+            entries.load(reader);
+        }
+        if (!packageList.equals(entries.getProperty(PACKAGES_KEY)))
+            return null;
+
+        final List<Class<?>> types = new ArrayList<>();
+        for (String name : entries.stringPropertyNames()) {
+            if (name.equals(PACKAGES_KEY))
+                continue;
+
+            final Class<?> type = load(name, loader);
+            if (type == null || !Long.toHexString(hash(type, loader)).equals(entries.getProperty(name)))
+                return null;
+            types.add(type);
+        }
+        return types;
+    }
+
+    private static void write(Path index, String packageList, List<Class<?>> types) throws IOException {
+        final ClassLoader loader = loader();
+        final Properties entries = new Properties();
+        entries.setProperty(PACKAGES_KEY, packageList);
+        for (Class<?> type : types)
+            entries.setProperty(type.getName(), Long.toHexString(hash(type, loader)));
+
+        if (index.getParent() != null)
+            Files.createDirectories(index.getParent());
+        try (OutputStream out = Files.newOutputStream(index)) {
+            entries.store(out, "Cloneable classes, and the hashes of their class files");
+        }
+    }
+
+    /**
+     * @return a CRC32 of the class files of {@param type} and its superclasses
+     */
+    private static long hash(Class<?> type, ClassLoader loader) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[8192];
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            crc.update(current.getName().getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = loader.getResourceAsStream(current.getName().replace('.', '/') + ".class")) {
+                if (in == null)
+                    continue;
+                for (int read = in.read(buffer); read > 0; read = in.read(buffer))
+                    crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static Class<?> load(String name, ClassLoader loader) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static ClassLoader loader() {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader != null ? loader : CloneWarmup.class.getClassLoader();
+    }
+}
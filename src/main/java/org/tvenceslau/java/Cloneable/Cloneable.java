@@ -34,6 +34,7 @@ import java.lang.annotation.Target;
  * @see Cloneable.NotToClone
  * @see Cloneable.ToUpdate
  * @see Cloneable.NotToUpdate
+ * @see Cloneable.Immutable
  *
  * @param <S> Should be the the Class that is implementing it
  *
@@ -49,41 +50,141 @@ public interface Cloneable<S> {
      * Objects that need to have non {@link Cloneable} fields, that require cloning,
      *
      * @param <T> Any subclass of {@param S} or a {@param S} itself
-     * @return Returns a deep'ish clone according to {@link Cloneables#deepClone(Class, Object, Object)}
+     * @return Returns a deep'ish clone according to {@link Cloneables#deepClone(Class, Object, Object)},
+     *          or to the class' {@link GeneratedCloner} when {@value Cloneables#GENERATED_PROPERTY} is set
      */
-    @SuppressWarnings(value="unchecked")
     default <T extends S> T cloneSelf(){
-        final Class<?> clazz = this.getClass();
+        return Cloneables.cloneObject(this);
+    }
 
-        T newObj;
-        try{
-            newObj = (T) clazz.newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new UnsupportedOperationException("Could not create a copy of " + this);
-        }
+    /**
+     * Identity preserving version of {@link #cloneSelf()}
+     * Objects referenced from several places in the graph are cloned only once, and cycles are kept as cycles,
+     * instead of cloning them over and over (or forever)
+     *
+     * @param context   tracks what has already been cloned. Use a new one per clone, unless sharing between clones is wanted
+     * @param <T>       Any subclass of {@param S} or a {@param S} itself
+     * @return Returns a deep'ish clone according to {@link Cloneables#deepClone(Class, Object, Object)}
+     */
+    default <T extends S> T cloneSelf(CloneContext context) {
+        return Cloneables.cloneObject(this, context);
+    }
 
-        Cloneables.deepClone(clazz, this, newObj);
-        return newObj;
+    /**
+     * Budgeted version of {@link #cloneSelf()}: the graph is walked first, and only cloned if that fits in
+     * {@param budget}, so a runaway clone fails before it allocates anything
+     *
+     * @param budget    the most this clone may allocate, see {@link CloneBudget}
+     * @param <T>       Any subclass of {@param S} or a {@param S} itself
+     * @return Returns the same clone as {@link #cloneSelf()}
+     * @throws IllegalStateException when the clone would go over {@param budget}
+     */
+    default <T extends S> T cloneSelf(CloneBudget budget) {
+        return Cloneables.cloneObject(this, budget);
+    }
+
+    /**
+     * Partial version of {@link #cloneSelf()}: clones only the field paths {@param profile} marks as deep,
+     * shares or skips the others
+     *
+     * @param profile   the named {@link CloneProfile} for this call site
+     * @param <T>       Any subclass of {@param S} or a {@param S} itself
+     * @return Returns a clone as deep as {@param profile} says
+     */
+    default <T extends S> T cloneSelf(CloneProfile profile) {
+        return profile.clone(this);
+    }
+
+    /**
+     * Recycling version of {@link #cloneSelf()}: clones this into {@param target}, an existing graph of the same
+     * shape (eg: the previous clone), reusing its nested objects and containers instead of allocating new ones.
+     * See {@link Cloneables#cloneInto(Cloneable, Cloneable)}
+     *
+     * @param target    another instance of this class, that nothing else holds on to
+     * @param <T>       Any subclass of {@param S} or a {@param S} itself
+     * @return {@param target}, now a clone of this
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default <T extends S> T cloneInto(T target) {
+        return (T) Cloneables.cloneInto((Cloneable) this, (Cloneable) target);
     }
 
     /**
      * Method to be used to update a {@link Cloneable}'s properties annotated with {@link ToUpdate}
      * It was designed for use in bulk cloning operations so
-     * @param index     is the index on thos bulk operations
+     * @param index     is the index on those bulk operations
      */
     default void updateSelf(int index) {
         Cloneables.update(this.getClass(), this, index);
     }
 
+    /**
+     * Same result as {@link #cloneSelf()} followed by {@link #updateSelf(int)} on the clone, but in a single pass
+     * over the graph: {@link ToUpdate} specifications are applied while cloning, and containers are built only once,
+     * already holding their updated elements
+     *
+     * @param index     is the index on those bulk operations
+     * @param <T>       Any subclass of {@param S} or a {@param S} itself
+     * @return the updated clone
+     */
+    default <T extends S> T cloneAndUpdate(int index) {
+        return Cloneables.cloneAndUpdate(this, index);
+    }
+
+    /**
+     * Same as {@link #cloneAndUpdate(int)}, cloning only as deep as {@param profile} says.
+     * Shared values aren't updated, see {@link CloneProfile}
+     *
+     * @param index     is the index on those bulk operations
+     * @param profile   the named {@link CloneProfile} for this call site
+     * @param <T>       Any subclass of {@param S} or a {@param S} itself
+     * @return the updated clone
+     */
+    default <T extends S> T cloneAndUpdate(int index, CloneProfile profile) {
+        return profile.cloneAndUpdate(this, index);
+    }
+
+    /**
+     * Identity aware version of {@link #updateSelf(int)}, for graphs with shared references or cycles,
+     * eg: those cloned via {@link #cloneSelf(CloneContext)}. Every object is updated only once
+     *
+     * @param index     is the index on those bulk operations
+     * @param context   tracks what has already been updated
+     */
+    default void updateSelf(int index, CloneContext context) {
+        Cloneables.update(this, index, context);
+    }
+
     /**
      * Annotation meant to tag a <strong>non</strong> {@link Cloneable} object that needs cloning by any other method
      * Will call the method called by the provided param 'method'
      * that method must return an object of the same class and must take no arguments
+     * <p>Or, with a {@link #strategy()}, a copy constructor or a static factory taking the value,
+     * eg: '@ToClone(strategy = Strategy.COPY_CONSTRUCTOR)' for 'new Foo(foo)'. See {@link CustomCloner}</p>
      */
     @Retention(value= RetentionPolicy.RUNTIME)
     @Target(ElementType.FIELD)
     @interface ToClone {
+        /**
+         * the no-arg method to call on the value, or the static factory's name for {@link Strategy#STATIC_FACTORY}
+         */
         String method() default "clone";
+
+        Strategy strategy() default Strategy.METHOD;
+
+        /**
+         * the class holding the copy constructor or static factory, the field's type by default
+         */
+        Class<?> factory() default void.class;
+
+        enum Strategy {
+            /** value.method() */
+            METHOD,
+            /** new Factory(value) */
+            COPY_CONSTRUCTOR,
+            /** Factory.method(value) */
+            STATIC_FACTORY
+        }
     }
 
     /**
@@ -111,6 +212,14 @@ public interface Cloneable<S> {
     @Target(ElementType.FIELD)
     @interface NotToUpdate {}
 
+    /**
+     * Annotation to tag classes whose instances never change, so they are always shared and never cloned nor updated.
+     * See {@link ImmutableTypes}
+     */
+    @Retention(value = RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @interface Immutable {}
+
     /**
      * Provides a simple way to perform bulk property updates via {@link Cloneables#update(Class, Cloneable, int)}
      * @param <T> The type of the field to update
@@ -124,5 +233,86 @@ public interface Cloneable<S> {
          */
         T update(T originalValue, int index);
     }
+
+    /**
+     * {@link UpdateSpecification} that can produce the values of a whole range of indexes at once, so work that is
+     * the same for every index (formatting a prefix, reserving a block of ids, reading a sequence) is done once per
+     * range instead of once per clone.
+     * <p>Bulk cloning ({@link Cloneables#bulkClone(Cloneable, int, int)}) asks for ranges of consecutive indexes,
+     * once per distinct original value (and once more for every other field of a clone holding an equal one), and
+     * hands the results out to the clones: results should only depend on the original value and the index.
+     * Everything else still calls {@link #update(Object, int)}, which by default asks for a range of one</p>
+     * @param <T> The type of the field to update
+     */
+    interface BatchUpdateSpecification<T> extends UpdateSpecification<T> {
+        /**
+         * @param originalValue the original property's value
+         * @param fromIndex     the index of the first clone
+         * @param results       to fill with the updated values: results[i] for the clone of index fromIndex + i
+         */
+        void update(T originalValue, int fromIndex, Object[] results);
+
+        @Override
+        @SuppressWarnings("unchecked")
+        default T update(T originalValue, int index) {
+            final Object[] result = new Object[1];
+            update(originalValue, index, result);
+            return (T) result[0];
+        }
+    }
+
+    /**
+     * Batch {@link UpdateSpecification} for int fields: the primitive counterpart of {@link BatchUpdateSpecification},
+     * that never boxes on the bulk cloning path
+     */
+    interface IntBatchUpdateSpecification extends UpdateSpecification<Integer> {
+        /**
+         * @param results to fill with the updated values: results[i] for the clone of index fromIndex + i
+         */
+        void update(int originalValue, int fromIndex, int[] results);
+
+        @Override
+        default Integer update(Integer originalValue, int index) {
+            final int[] result = new int[1];
+            update(originalValue == null ? 0 : originalValue, index, result);
+            return result[0];
+        }
+    }
+
+    /**
+     * Batch {@link UpdateSpecification} for long fields: the primitive counterpart of {@link BatchUpdateSpecification},
+     * that never boxes on the bulk cloning path
+     */
+    interface LongBatchUpdateSpecification extends UpdateSpecification<Long> {
+        /**
+         * @param results to fill with the updated values: results[i] for the clone of index fromIndex + i
+         */
+        void update(long originalValue, int fromIndex, long[] results);
+
+        @Override
+        default Long update(Long originalValue, int index) {
+            final long[] result = new long[1];
+            update(originalValue == null ? 0 : originalValue, index, result);
+            return result[0];
+        }
+    }
+
+    /**
+     * Batch {@link UpdateSpecification} for double fields: the primitive counterpart of {@link BatchUpdateSpecification},
+     * that never boxes on the bulk cloning path
+     */
+    interface DoubleBatchUpdateSpecification extends UpdateSpecification<Double> {
+        /**
+         * @param results to fill with the updated values: results[i] for the clone of index fromIndex + i
+         */
+        void update(double originalValue, int fromIndex, double[] results);
+
+        @Override
+        default Double update(Double originalValue, int index) {
+            final double[] result = new double[1];
+            update(originalValue == null ? 0 : originalValue, index, result);
+            return result[0];
+        }
+    }
 }
 
@@ -1,19 +1,396 @@
 package org.tvenceslau.java.Cloneable;
 
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
 import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;
 
 import java.lang.reflect.*;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.toCollection;
-
 public class Cloneables {
 
-    private static final Pattern CLASS_COMPARE_PAT = Pattern.compile("^(.*?)(?:\\$\\d+)?$");
-    private static final Map<Class<?>, UpdateSpecification<?>> specMapCache = new HashMap<>();
+    /**
+     * System property that, when 'true', makes {@link Cloneable#cloneSelf()} and {@link Cloneable#updateSelf(int)}
+     * run through a {@link GeneratedCloner} per class instead of interpreting the {@link ClonePlan}
+     */
+    public static final String GENERATED_PROPERTY = "org.tvenceslau.java.Cloneable.generated";
+
+    private static final boolean GENERATED = Boolean.getBoolean(GENERATED_PROPERTY);
+
+    /**
+     * System property that, when 'iterative', makes {@link Cloneable#cloneSelf()} and {@link Cloneable#updateSelf(int)}
+     * walk the whole graph with the non recursive {@link CloneTraversal}, for graphs too deep for the thread's stack
+     */
+    public static final String TRAVERSAL_PROPERTY = "org.tvenceslau.java.Cloneable.traversal";
+
+    private static final boolean ITERATIVE = "iterative".equalsIgnoreCase(System.getProperty(TRAVERSAL_PROPERTY));
+
+    /**
+     * System property with the initial {@link #setParallelThreshold(int)}. Defaults to 0 (disabled)
+     */
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "org.tvenceslau.java.Cloneable.parallelThreshold";
+
+    private static volatile int parallelThreshold = Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY, 0);
+
+    /**
+     * One {@link UpdateSpecification} instance per class. {@link ClassValue} lookups are lock free, and never pin the
+     * class nor its loader, so it is safe to share between any number of threads
+     */
+    private static final ClassValue<UpdateSpecification<?>> specMapCache = new ClassValue<UpdateSpecification<?>>() {
+        @Override
+        protected UpdateSpecification<?> computeValue(Class<?> type) {
+            try {
+                return (UpdateSpecification<?>) type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not get Specification");
+            }
+        }
+    };
+
+    /**
+     * Creates a new instance of {@param origin}'s class and clones {@param origin} into it.
+     * What backs {@link Cloneable#cloneSelf()}
+     * <p>Uses the class' build time {@link CompiledCloner} when there is one</p>
+     *
+     * @param origin Object to be cloned
+     * @param <T>    ...
+     * @return the clone
+     */
+    static <T> T cloneObject(final Object origin) {
+        if (!CloneMetrics.active)
+            return cloneWith(origin);
+
+        final long start = CloneMetrics.enter();
+        try {
+            if (!ITERATIVE)
+                CloneMetrics.objectCloned(origin.getClass());
+            return cloneWith(origin);
+        } finally {
+            CloneMetrics.exitClone(origin.getClass(), start);
+        }
+    }
+
+    /**
+     * Picks the engine for {@link #cloneObject(Object)}
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T cloneWith(final Object origin) {
+        if (ITERATIVE)
+            return CloneTraversal.cloneGraph(origin, null);
+
+        final Class<?> clazz = origin.getClass();
+
+        final CompiledCloner<Object> compiled = CompiledCloners.find(clazz);
+        if (compiled != null) {
+            final Object newObj = Instantiators.newInstance(clazz);
+            compiled.copy(origin, newObj);
+            return (T) newObj;
+        }
+
+        if (GENERATED)
+            return (T) GeneratedCloner.of(clazz).cloneObject(origin);
+
+        final T newObj = newInstance(clazz, origin);
+        deepClone(clazz, origin, newObj);
+        return newObj;
+    }
+
+    /**
+     * Identity preserving version of {@link #cloneObject(Object)}, what backs {@link Cloneable#cloneSelf(CloneContext)}
+     * <p>Every object is cloned at most once per {@param context}: objects reached again (shared references, cycles)
+     * get the clone already made for them. Always runs through the non recursive {@link CloneTraversal}</p>
+     *
+     * @param origin  Object to be cloned
+     * @param context keeps track of what has already been cloned
+     * @param <T>     ...
+     * @return the clone
+     */
+    static <T> T cloneObject(final Object origin, final CloneContext context) {
+        if (!CloneMetrics.active)
+            return CloneTraversal.cloneGraph(origin, context);
+
+        final long start = CloneMetrics.enter();
+        try {
+            return CloneTraversal.cloneGraph(origin, context);
+        } finally {
+            CloneMetrics.exitClone(origin.getClass(), start);
+        }
+    }
+
+    /**
+     * Budgeted version of {@link #cloneObject(Object)}, what backs {@link Cloneable#cloneSelf(CloneBudget)}:
+     * {@param origin} is only cloned once {@link #estimate(Cloneable)} says it fits {@param budget}
+     *
+     * @throws IllegalStateException when it doesn't, or when {@param origin}'s graph has cycles
+     */
+    static <T> T cloneObject(final Object origin, final CloneBudget budget) {
+        final CloneCost cost = CloneCost.estimate(origin, budget);
+        if (cost.isCyclic())
+            throw new IllegalStateException("Clone of " + origin.getClass().getName()
+                    + " would never end, its graph has cycles: clone it with a CloneContext");
+        return cloneObject(origin);
+    }
+
+    /**
+     * Walks {@param origin}'s graph, without allocating any of it, to tell what cloning it would
+     *
+     * @param origin the {@link Cloneable} that would be cloned
+     * @return how many objects and bytes {@link Cloneable#cloneSelf()} would allocate, and how deep it would go
+     */
+    public static CloneCost estimate(Cloneable<?> origin) {
+        return CloneCost.estimate(origin, CloneBudget.UNLIMITED);
+    }
+
+    /**
+     * @return a new instance of {@param clazz} to clone {@param origin} into, see {@link Instantiators}
+     */
+    static <T> T newInstance(Class<?> clazz, Object origin) {
+        return Instantiators.newInstance(clazz);
+    }
+
+    /**
+     * Same result as {@link #cloneObject(Object)} followed by {@link #update(Class, Cloneable, int)} on the clone,
+     * what backs {@link Cloneable#cloneAndUpdate(int)}
+     * <p>The interpreted engine does both in a single pass over the graph. Build time {@link CompiledCloner}s,
+     * the {@link GeneratedCloner}s and the {@link CloneTraversal} clone first and update the clone after</p>
+     *
+     * @param origin Object to be cloned
+     * @param index  the clone index
+     * @param <T>    ...
+     * @return the updated clone
+     */
+    static <T> T cloneAndUpdate(final Object origin, final int index) {
+        if (!CloneMetrics.active)
+            return cloneAndUpdateWith(origin, index);
+
+        final long start = CloneMetrics.enter();
+        try {
+            if (!ITERATIVE)
+                CloneMetrics.objectCloned(origin.getClass());
+            return cloneAndUpdateWith(origin, index);
+        } finally {
+            CloneMetrics.exitClone(origin.getClass(), start);
+        }
+    }
+
+    /**
+     * Picks the engine for {@link #cloneAndUpdate(Object, int)}
+     */
+    @SuppressWarnings("rawtypes")
+    private static <T> T cloneAndUpdateWith(final Object origin, final int index) {
+        final Class<?> clazz = origin.getClass();
+        if (ITERATIVE || GENERATED || CompiledCloners.find(clazz) != null) {
+            final T clone = cloneWith(origin);
+            ((Cloneable) clone).updateSelf(index);
+            return clone;
+        }
+
+        final T newObj = newInstance(clazz, origin);
+        deepCloneAndUpdate(clazz, origin, newObj, index);
+        return newObj;
+    }
+
+    /**
+     * Clones {@param origin} into {@param target}, reusing every nested {@link Cloneable}, collection, map and array
+     * of {@param target} that has the same shape as the one it replaces, instead of allocating new ones.
+     * What backs {@link Cloneable#cloneInto(Object)}, see {@link Recycler}
+     * <p>Meant for loops that keep cloning the same template: pass the previous clone, which is overwritten
+     * all the way down, so nothing else may hold on to it or to anything below it</p>
+     *
+     * @param origin the {@link Cloneable} to clone
+     * @param target an instance of exactly {@param origin}'s class, eg: a previous clone of it
+     * @return {@param target}, now a clone of {@param origin}
+     */
+    public static <T extends Cloneable<?>> T cloneInto(T origin, T target) {
+        if (target == null || target == origin || target.getClass() != origin.getClass())
+            throw new IllegalArgumentException("The target must be another instance of " + origin.getClass().getName());
+
+        if (!CloneMetrics.active)
+            return Recycler.cloneInto(origin, target);
+
+        final long start = CloneMetrics.enter();
+        try {
+            CloneMetrics.objectCloned(origin.getClass());
+            return Recycler.cloneInto(origin, target);
+        } finally {
+            CloneMetrics.exitClone(origin.getClass(), start);
+        }
+    }
+
+    /**
+     * Bulk cloning on the common {@link ForkJoinPool}
+     *
+     * @see #bulkClone(Cloneable, int, int, ForkJoinPool)
+     * @return {@param count} clones of {@param template}, updated with the indexes 0 to {@param count} - 1
+     */
+    public static <T extends Cloneable<?>> List<T> bulkClone(T template, int count) {
+        return bulkClone(template, 0, count, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Bulk cloning on the common {@link ForkJoinPool}
+     *
+     * @see #bulkClone(Cloneable, int, int, ForkJoinPool)
+     */
+    public static <T extends Cloneable<?>> List<T> bulkClone(T template, int fromIndex, int toIndex) {
+        return bulkClone(template, fromIndex, toIndex, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Produces a clone of {@param template} for every index in [{@param fromIndex}, {@param toIndex}), each one updated
+     * with its own index. Same as calling {@link Cloneable#cloneSelf()} and {@link Cloneable#updateSelf(int)} in a loop,
+     * but split across every worker of the {@param pool}
+     *
+     * @param template  the {@link Cloneable} to clone. Must not be changed while the clones are being made
+     * @param fromIndex the first index, inclusive
+     * @param toIndex   the last index, exclusive
+     * @param pool      where to run
+     * @return the clones, in index order: the clone at position i was updated with {@param fromIndex} + i
+     */
+    public static <T extends Cloneable<?>> List<T> bulkClone(T template, int fromIndex, int toIndex, ForkJoinPool pool) {
+        return BulkCloner.onPool(template, fromIndex, toIndex, pool);
+    }
+
+    /**
+     * Same as {@link #bulkClone(Cloneable, int, int)}, cloning only as deep as {@param profile} says
+     *
+     * @see CloneProfile
+     */
+    public static <T extends Cloneable<?>> List<T> bulkClone(T template, int fromIndex, int toIndex, CloneProfile profile) {
+        return BulkCloner.onPool(template, fromIndex, toIndex, ForkJoinPool.commonPool(), profile);
+    }
+
+    /**
+     * Same as {@link #bulkClone(Cloneable, int, int, ForkJoinPool)} on any {@link Executor},
+     * split in chunks according to the number of available processors
+     */
+    public static <T extends Cloneable<?>> List<T> bulkClone(T template, int fromIndex, int toIndex, Executor executor) {
+        return BulkCloner.onExecutor(template, fromIndex, toIndex, executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Lazy version of {@link #bulkClone(Cloneable, int, int)}: the clones are only made as they are consumed,
+     * through a {@link Stream}, a {@link Spliterator} or a {@link ClonePublisher},
+     * so any number of them can be produced in constant memory
+     *
+     * @param template  the {@link Cloneable} to clone. Must not be changed while clones are being made
+     * @param fromIndex the first index, inclusive
+     * @param toIndex   the last index, exclusive
+     * @return the producer of the clones, see {@link IndexedClones}
+     */
+    public static <T extends Cloneable<?>> IndexedClones<T> indexedClones(T template, int fromIndex, int toIndex) {
+        return new IndexedClones<>(template, fromIndex, toIndex);
+    }
+
+    /**
+     * Same as {@link #indexedClones(Cloneable, int, int)}.{@link IndexedClones#stream() stream()}
+     *
+     * @return the clones of {@param template} for every index in [{@param fromIndex}, {@param toIndex}), made on demand
+     */
+    public static <T extends Cloneable<?>> Stream<T> cloneStream(T template, int fromIndex, int toIndex) {
+        return indexedClones(template, fromIndex, toIndex).stream();
+    }
+
+    /**
+     * Starts taking incremental snapshots of {@param model}: the first one clones the whole model, later ones only
+     * the nodes reported as changed (and the path to them), sharing the rest with the previous snapshot
+     *
+     * @param model the {@link Cloneable} root of the model
+     * @return the snapshot taker, see {@link IncrementalSnapshots}
+     */
+    public static <T extends Cloneable<?>> IncrementalSnapshots<T> incrementalSnapshots(T model) {
+        return new IncrementalSnapshots<>(model);
+    }
+
+    /**
+     * Flattens {@param template} into an off heap {@link TemplateSnapshot}, that clones can be materialized from
+     * without walking {@param template} again, and that can be persisted and loaded back after a restart
+     *
+     * @param template the {@link Cloneable} to flatten
+     * @return the snapshot, held in a direct buffer
+     */
+    public static <T extends Cloneable<?>> TemplateSnapshot<T> templateSnapshot(T template) {
+        return TemplateSnapshot.of(template);
+    }
+
+    /**
+     * Copy-on-write clone: a new {@param origin}'s class instance sharing every field value with {@param origin},
+     * nested {@link Cloneable}s and containers included. Nothing else is copied until it has to change,
+     * see {@link #lazyUpdate(Cloneable, int)} and {@link #detach(Object, String)}
+     * <p>Meant for read mostly variants of big templates: treat everything below the clone as read only,
+     * or {@link #detach(Object, String)} it first</p>
+     *
+     * @param origin the {@link Cloneable} to clone
+     * @return the lazy clone
+     */
+    public static <T extends Cloneable<?>> T lazyClone(T origin) {
+        return LazyCloner.shallowCopy(origin);
+    }
+
+    /**
+     * Same as {@link #lazyClone(Cloneable)} followed by {@link #lazyUpdate(Cloneable, int)}: only the objects
+     * the update changes (and the ones on the way to them) are copied, the rest stays shared with {@param origin}
+     *
+     * @param origin the {@link Cloneable} to clone
+     * @param index  the clone index
+     * @return the updated lazy clone
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Cloneable<?>> T lazyClone(T origin, int index) {
+        final T updated = (T) LazyCloner.update(origin, index);
+        return updated == origin ? LazyCloner.shallowCopy(origin) : updated;
+    }
+
+    /**
+     * Same result as {@link Cloneable#updateSelf(int)}, but for a lazy clone: {@param clone}'s own fields are
+     * updated in place, and shared objects are never changed, they are replaced by updated copies instead
+     *
+     * @param clone a {@link #lazyClone(Cloneable)}
+     * @param index the clone index
+     */
+    public static void lazyUpdate(Cloneable<?> clone, int index) {
+        LazyCloner.updateInPlace(clone, index);
+    }
+
+    /**
+     * Gives {@param owner} its own copy of the value of its {@param fieldName} field, so it can be written to:
+     * a shallow copy of objects, a copy holding the same elements for containers. Immutable values are left as is.
+     * Chain it to reach deeper: 'detach(detach(clone, "child"), "grandChild")'
+     *
+     * @param owner     an object that isn't shared, eg: a {@link #lazyClone(Cloneable)} or an already detached value
+     * @param fieldName the name of one of {@param owner}'s fields
+     * @return the new value of the field
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V detach(Object owner, String fieldName) {
+        return (V) LazyCloner.detach(owner, fieldName);
+    }
+
+    /**
+     * Opt-in parallel cloning of big collections: collection fields with at least {@param threshold} elements have
+     * their elements cloned across the common {@link ForkJoinPool}, instead of one after the other.
+     * The clone keeps the element order and the concrete collection type.
+     * <p>Applies to {@link Cloneable#cloneSelf()}, whatever the cloner, but not to the work stack based traversals
+     * ({@link Cloneable#cloneSelf(CloneContext)} and {@link #TRAVERSAL_PROPERTY}), which stay on the calling thread,
+     * nor while a {@link CloneBudget} is {@link CloneBudget#enforce(CloneBudget) enforced}</p>
+     * <p>Elements that aren't {@link Cloneable} are shared, as always, so only go parallel if cloning the elements
+     * doesn't touch any state shared between them</p>
+     *
+     * @param threshold the minimum size of a collection to be cloned in parallel, 0 or less to disable it
+     */
+    public static void setParallelThreshold(int threshold) {
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * @return the current {@link #setParallelThreshold(int)}
+     */
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
 
     /**
      * Recursively perform a deep'ish copy of the provided {@param origin} into the
@@ -23,241 +400,326 @@ public class Cloneables {
      * <li>Every primitive property of the {@param origin} will be copied </li>
      * <li>Every Object property that implements {@link Cloneable} will be cloned as well</li>
      * <li><strong>Non</strong> {@link Cloneable} Objects will be the shared according to the current implementation</li>
-     * <li>Final properties will be ignored</li>
+     * <li>Static and synthetic properties will be ignored</li>
      * </ul>
      *
+     * <p>Runs from the cached {@link ClonePlan} of {@param clazz}, which already covers the whole class hierarchy</p>
+     *
      * @param clazz       Should be the origin's/destination's class when initially called.
      * @param origin      Object to be copied of class {@param T}
      * @param destination Resulting object of class {@param T}
      * @param <T>         Mutual Instance Class
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
     static <T> void deepClone(Class<?> clazz, final T origin, final T destination) {
-        final Field[] fields = clazz.getDeclaredFields();
+        for (FieldAction action : ClonePlan.of(clazz).cloneActions)
+            cloneField(action, origin, destination);
+    }
 
-        Object obj;
-        Class<?> classType;
+    /**
+     * What {@link #deepClone(Class, Object, Object)} does to a single field
+     */
+    static void cloneField(FieldAction action, Object origin, Object destination) {
+        final FieldAccessor accessor = action.accessor;
+
+        switch (action.cloneKind) {
+            case SHARE:
+                accessor.copy(origin, destination);
+                break;
+            case CONTAINER:
+                accessor.set(destination, action.immutableElements
+                        ? Containers.copyShallow(accessor.get(origin))
+                        : cloneContainer(accessor.get(origin)));
+                break;
+            case CUSTOM:
+                // for fields that must be cloned, but do not implement 'Cloneable'
+                accessor.set(destination, action.custom.copy(accessor.get(origin)));
+                break;
+            default:
+                accessor.set(destination, handleSingleField(accessor.get(origin)));
+        }
+    }
 
-        for (Field field : fields) {
-            if (!field.isAccessible())
-                field.setAccessible(true);
+    /**
+     * Single pass version of {@link #deepClone(Class, Object, Object)} followed by
+     * {@link #update(Class, Cloneable, int)}: every value gets exactly what the two passes would have done to it,
+     * but nested {@link Cloneable}s are cloned and updated in one go, and containers are built holding their updated
+     * elements, so hashed and sorted ones never need rehashing
+     *
+     * @param clazz       the origin's/destination's class
+     * @param origin      Object to be copied
+     * @param destination Resulting object
+     * @param index       the clone index
+     */
+    static <T> void deepCloneAndUpdate(Class<?> clazz, final T origin, final T destination, final int index) {
+        for (FieldAction action : ClonePlan.of(clazz).cloneActions)
+            cloneAndUpdateField(action, origin, destination, index);
+    }
 
-            try {
-                if (field.isAnnotationPresent(Cloneable.NotToClone.class)) {
-                    field.set(destination, field.get(origin));
-                    continue;
-                }
-
-                classType = field.getType();
-
-                if (((obj = field.get(origin)) != null) && Collection.class.isAssignableFrom(classType)) {
-                    field.set(destination, collectToList(((Collection) obj).stream()
-                            .map(Cloneables::handleSingleField), obj.getClass()));
-                } else if (obj != null && field.isAnnotationPresent(Cloneable.ToClone.class)) {
-                    // for fields that must be cloned, but do not implement 'Cloneable'
-                    field.set(destination, customCloneField(obj, field.getAnnotation(Cloneable.ToClone.class)));
-                } else {
-                    field.set(destination, handleSingleField(obj));
-                }
-
-            } catch (IllegalAccessException e) {
-                throw new UnsupportedOperationException(clazz.getSimpleName() + " copying went wrong. " + e.getMessage());
-            }
+    /**
+     * What {@link #deepCloneAndUpdate(Class, Object, Object, int)} does to a single field
+     */
+    static void cloneAndUpdateField(FieldAction action, Object origin, Object destination, int index) {
+        final FieldAccessor accessor = action.accessor;
+
+        switch (action.cloneKind) {
+            case SHARE:
+                if (action.updateKind == ClonePlan.UpdateKind.NONE)
+                    accessor.copy(origin, destination);
+                else if (action.updateKind == ClonePlan.UpdateKind.CONTAINER)
+                    accessor.set(destination, updateContainer(accessor.get(origin), index));
+                else if (!action.primitiveBatch || !BatchUpdates.updatePrimitive(action, origin, destination, index))
+                    accessor.set(destination, updateSingleField(accessor.get(origin), action, index));
+                break;
+            case CONTAINER:
+                if (action.updateKind == ClonePlan.UpdateKind.SINGLE)
+                    // a Map or array with a specification of its own, applied to its clone
+                    accessor.set(destination, updateSingleField(action.immutableElements
+                            ? Containers.copyShallow(accessor.get(origin))
+                            : cloneContainer(accessor.get(origin)), action, index));
+                else if (action.immutableElements)
+                    accessor.set(destination, Containers.copyShallow(accessor.get(origin)));
+                else if (action.updateKind == ClonePlan.UpdateKind.NONE)
+                    accessor.set(destination, cloneContainer(accessor.get(origin)));
+                else
+                    accessor.set(destination, cloneContainer(accessor.get(origin),
+                            value -> cloneAndUpdateSingleField(value, null, index)));
+                break;
+            case CUSTOM:
+                final Object custom = action.custom.copy(accessor.get(origin));
+                accessor.set(destination, action.updateKind == ClonePlan.UpdateKind.NONE
+                        ? custom
+                        : updateSingleField(custom, action, index));
+                break;
+            default:
+                accessor.set(destination, action.updateKind == ClonePlan.UpdateKind.NONE
+                        ? handleSingleField(accessor.get(origin))
+                        : cloneAndUpdateSingleField(accessor.get(origin), action, index));
         }
+    }
 
-        if (clazz.getSuperclass() != null)
-            deepClone(clazz.getSuperclass(), origin, destination);
+    /**
+     * {@link #handleSingleField(Object)} followed by {@link #updateSingleField(Object, FieldAction, int)}
+     *
+     * @param action the field's {@link FieldAction}, or null for container elements
+     */
+    @SuppressWarnings("rawtypes")
+    private static Object cloneAndUpdateSingleField(Object obj, FieldAction action, int index) {
+        if (obj instanceof Cloneable)
+            return ((Cloneable) obj).cloneAndUpdate(index);
+        return updateSingleField(obj, action, index);
     }
 
     @SuppressWarnings("rawtypes")
-    private static Object handleSingleField(Object obj) {
-        if (obj != null && Cloneable.class.isAssignableFrom(obj.getClass()))
+    static Object handleSingleField(Object obj) {
+        if (obj instanceof Cloneable)
             return ((Cloneable) obj).cloneSelf();
         return obj;
     }
 
     /**
-     * This method calls an {@link Cloneable.ToClone} annotated method in the provided object
-     * Part of the {@link Cloneable} functionality.
-     * The annotated method will have to return an Object of the same class as the provided {@param obj} and take no parameters
-     *
-     * @param obj An Object to be cloned via its {@link Cloneable.ToClone} annotated method
-     * @return the clone of the object
+     * @param obj a {@link Collection}, {@link Map}, array or null
+     * @return a new container of the same type with every {@link Cloneable} element, key and value cloned, or null
+     * @see Containers
      */
-    private static Object customCloneField(Object obj, Cloneable.ToClone annotation) {
-        final List<Method> methods = new ArrayList<>();
-        final Class<?> clazz = obj.getClass();
-        final String methodName = annotation.method();
-        for (final Method method : clazz.getDeclaredMethods())
-            if (method.getName().equals(methodName))
-                methods.add(method);
-
-        if (methods.isEmpty())
-            throw new IllegalStateException("Couldn't find a match to the provided method name.");
-
-        if (methods.size() > 1)
-            throw new IllegalStateException("The method name must be unique.");
+    static Object cloneContainer(Object obj) {
+        return cloneContainer(obj, Cloneables::handleSingleField);
+    }
 
-        final Method method = methods.get(0);
-        if (method.getParameterCount() != 0 || !compareClass(clazz, method.getReturnType()))
-            throw new IllegalStateException("'ToClone' methods can take no parameters and must return an object of the same class as the original object");
+    /**
+     * @param element clones a single element, key or value
+     */
+    private static Object cloneContainer(Object obj, UnaryOperator<Object> element) {
+        if (obj instanceof Collection) {
+            final Collection<?> collection = (Collection<?>) obj;
+            final int threshold = parallelThreshold;
+            // budgets are counted per thread, workers would clone out of sight of the enforced one
+            if (threshold > 0 && collection.size() >= threshold && !CloneBudget.isEnforced()) {
+                if (CloneMetrics.active)
+                    CloneMetrics.elementsCopied(collection.getClass(), collection.size());
+                final Collection<Object> clone = Containers.newCollection(collection);
+                clone.addAll(Arrays.asList(ParallelCollections.cloneElements(collection, element)));
+                return clone;
+            }
+        }
+        return Containers.copy(obj, element);
+    }
 
-        if (!method.isAccessible())
-            method.setAccessible(true);
+    /**
+     * Updates @ToUpdate annotated {@link Field}s according to the provided {@link UpdateSpecification}
+     *
+     * <p>Runs from the cached {@link ClonePlan} of {@param clazz}, which already covers the whole class hierarchy,
+     * or from {@param clazz}'s build time {@link CompiledCloner} when there is one</p>
+     *
+     * @param clazz  The entry class in the method. Should be originally called with {@param object}'s class
+     * @param object The {@link Cloneable} component that contains the Fields to have their name changed
+     * @param index  The clone index (Optional if the {@link UpdateSpecification} doesn't use it
+     * @param <T>    ...
+     */
+    public static <T> void update(Class<?> clazz, Cloneable<T> object, int index) {
+        if (!CloneMetrics.active) {
+            updateWith(clazz, object, index);
+            return;
+        }
 
+        final long start = CloneMetrics.enter();
         try {
-            return method.invoke(obj);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalStateException("Couldn't invoke cloning method. Do you have access?");
+            updateWith(clazz, object, index);
+        } finally {
+            CloneMetrics.exitUpdate(clazz, start);
         }
     }
 
     /**
-     * Necessary because the getClass method returns an instance I guess and we can't compare it with the returnType
-     * even if they're the same, they'll always test false.
-     * Could also use a split or something, but since the idea is to do this for big tree like structures recursively
-     * I chose the cache a single regexp
-     *
-     * Still wish I'd found a way around this...
-     *
-     * @param clazz1 class
-     * @param clazz2 class
-     * @return true if they're the same class
+     * Picks the engine for {@link #update(Class, Cloneable, int)}
      */
-    private static boolean compareClass(Class<?> clazz1, Class<?> clazz2) {
-        if (clazz1.equals(clazz2)) return true;
+    private static <T> void updateWith(Class<?> clazz, Cloneable<T> object, int index) {
+        if (ITERATIVE) {
+            CloneTraversal.updateGraph(object, index, null);
+            return;
+        }
 
-        final Matcher m1 = CLASS_COMPARE_PAT.matcher(clazz1.getName());
-        final Matcher m2 = CLASS_COMPARE_PAT.matcher(clazz2.getName());
-        if (!m1.matches() || !m2.matches()) return false;
+        final CompiledCloner<Object> compiled = CompiledCloners.find(clazz);
+        if (compiled != null) {
+            compiled.update(object, index);
+            return;
+        }
+
+        if (GENERATED) {
+            GeneratedCloner.of(clazz).update(object, index);
+            return;
+        }
+
+        FieldAccessor accessor;
 
-        return m1.group(1).equals(m2.group(1));
+        for (FieldAction action : ClonePlan.of(clazz).updateActions) {
+            accessor = action.accessor;
+
+            if (action.updateKind == ClonePlan.UpdateKind.CONTAINER)
+                accessor.set(object, updateContainer(accessor.get(object), index));
+            else if (!action.primitiveBatch || !BatchUpdates.updatePrimitive(action, object, object, index))
+                accessor.set(object, updateSingleField(accessor.get(object), action, index));
+        }
     }
 
     /**
-     * Updates @ToUpdate annotated {@link Field}s according to the provided {@link UpdateSpecification}
+     * Identity aware version of {@link #update(Class, Cloneable, int)}, what backs
+     * {@link Cloneable#updateSelf(int, CloneContext)}.
+     * Every object is updated at most once per {@param context}, so shared references and cycles are safe
      *
-     * @param clazz  The entry class in the method. Should be originally called with {@param object}'s class
-     * @param object The {@link Cloneable} component that contains the Fields to have their name changed
-     * @param index  The clone index (Optional if the {@link UpdateSpecification} doesn't use it
-     * @param <T>    ...
+     * @param object  The {@link Cloneable} to update
+     * @param index   The clone index
+     * @param context keeps track of what has already been updated
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    public static <T> void update(Class<?> clazz, Cloneable<T> object, int index) {
-        final Field[] fields = clazz.getDeclaredFields();
-
-        Class<?> classType;
-        Object obj;
-        for (Field field : fields) {
-            if (!field.isAccessible())
-                field.setAccessible(true);
-
-            if (!field.isAnnotationPresent(Cloneable.NotToUpdate.class)) {
-                classType = field.getType();
-                try {
-                    if (((obj = field.get(object)) != null) && Collection.class.isAssignableFrom(classType))
-                        field.set(object, collectToList(((Collection) obj).stream()
-                                .map(f -> updateSingleField(f, null, index)), obj.getClass()));
-                    else
-                        field.set(object, updateSingleField(object, field, index));
-
-                } catch (IllegalAccessException e) {
-                    throw new UnsupportedOperationException("Could not access inner properties. " + e.getMessage());
-                }
-            }
+    static void update(Object object, int index, CloneContext context) {
+        if (!CloneMetrics.active) {
+            CloneTraversal.updateGraph(object, index, context);
+            return;
         }
 
-        if (clazz.getSuperclass() != null)
-            update(clazz.getSuperclass(), object, index);
+        final long start = CloneMetrics.enter();
+        try {
+            CloneTraversal.updateGraph(object, index, context);
+        } finally {
+            CloneMetrics.exitUpdate(object.getClass(), start);
+        }
     }
 
     /**
-     * Updates a Single field's value,
-     * or,
-     * if the {@param field} is null (handling list items via stream)
-     * if {@param obj} is {@link Cloneable}, call {@param obj}'s {@link Cloneable#updateSelf(int)}
-     * else return the {@param obj}
+     * Containers are updated in place, since their {@link Cloneable} elements update themselves in place.
+     * Hashed and sorted ones are then rehashed, as updated elements and keys may no longer hash or sort the same
      *
-     * @param obj   Object that should have it's {@param field} updated
-     * @param field {@link Field} to be updated.
-     *              <strong>MUST</strong> be null when acting on Collections via Streams.
-     * @throws IllegalArgumentException when field to update ios not a String
+     * @param obj a {@link Collection}, {@link Map}, array or null
+     * @return {@param obj} with every {@link Cloneable} element, key and value updated, or null.
+     * Or an updated copy, for hashed or sorted containers that can't be rehashed in place (eg: unmodifiable ones)
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private static Object updateSingleField(Object obj, Field field, int index) {
-        if (field == null) {  // this handles items inside Collections
-            if (Cloneable.class.isAssignableFrom(obj.getClass()))
-                ((Cloneable) obj).updateSelf(index);
+    static Object updateContainer(Object obj, int index) {
+        if (obj == null)
+            return null;
+
+        Containers.forEach(obj, value -> updateSingleField(value, null, index));
+        if (!Containers.isHashedOrSorted(obj))
             return obj;
-        }
 
-        // this handles other items
-        Object originalProp;
         try {
-            originalProp = field.get(obj);
-        } catch (IllegalAccessException e) {
-            throw new UnsupportedOperationException("Could not access inner properties. " + e.getMessage());
+            Containers.rehash(obj);
+            return obj;
+        } catch (UnsupportedOperationException e) {
+            return Containers.copy(obj, value -> value);
         }
+    }
 
-        if (originalProp != null && Cloneable.class.isAssignableFrom(originalProp.getClass())) {
-            if (!field.isAnnotationPresent(Cloneable.NotToUpdate.class))
-                ((Cloneable) originalProp).updateSelf(index);
+    /**
+     * Updates a Single field's value,
+     * or,
+     * if the {@param action} is null (handling container elements)
+     * if {@param originalProp} is {@link Cloneable}, call {@param originalProp}'s {@link Cloneable#updateSelf(int)}
+     * else return the {@param originalProp}
+     *
+     * @param originalProp the field's current value
+     * @param action       {@link FieldAction} of the field to be updated.
+     *                     <strong>MUST</strong> be null when acting on container elements.
+     * @return the value the field should be set to
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static Object updateSingleField(Object originalProp, FieldAction action, int index) {
+        if (originalProp instanceof Cloneable) {
+            ((Cloneable) originalProp).updateSelf(index);
             return originalProp;
         }
 
-        if (!field.isAnnotationPresent(Cloneable.ToUpdate.class))
+        // this handles items inside containers
+        if (action == null || action.spec == null)
             return originalProp;
 
-        final Cloneable.ToUpdate annotation = field.getAnnotation(Cloneable.ToUpdate.class);
-
-        final Cloneable.UpdateSpecification spec = getSpec(annotation.spec());
+        final Cloneable.UpdateSpecification spec = getSpec(action.spec);
 
         return updateProperty(originalProp, spec, index);
     }
 
     /**
-     * Runs the provided {@link UpdateSpecification} and returns it
+     * Runs the provided {@link UpdateSpecification} and returns it.
+     * Every engine applies specifications through here, batch ones from the {@link BatchUpdates} range being bulk
+     * cloned, if any
      * @return the updated value
      */
-    private static <T> T updateProperty(final T property, final UpdateSpecification<T> spec, int index) {
+    static <T> T updateProperty(final T property, final UpdateSpecification<T> spec, int index) {
+        if (CloneMetrics.active)
+            CloneMetrics.specificationApplied(spec.getClass());
+        if (BatchUpdates.isBatch(spec)) {
+            final BatchUpdates.Window window = BatchUpdates.window(index);
+            if (window != null)
+                return window.update(property, spec, index);
+        }
         return spec.update(property, index);
     }
 
+    /**
+     * Builds everything cloning and updating {@param clazz} needs, for whichever engine is in use: its plan, its
+     * {@link UpdateSpecification}s, how it gets instantiated and its compiled or generated cloner.
+     * What backs {@link CloneWarmup}
+     *
+     * @param clazz a concrete {@link Cloneable} class
+     */
+    static void prepare(Class<?> clazz) {
+        for (FieldAction action : ClonePlan.of(clazz).updateActions)
+            if (action.spec != null)
+                getSpec(action.spec);
+
+        Instantiators.prepare(clazz);
+        CompiledCloners.find(clazz);
+        if (GENERATED)
+            GeneratedCloner.of(clazz);
+    }
+
     /**
      * Caches provided {@link UpdateSpecification} so you don't instantiate one for every cloning op
+     * <p>Thread safe: threads racing on a class not yet cached may each create an instance,
+     * but they all end up using the same one</p>
      * @param clazz class of {@link UpdateSpecification}
      * @param <T>   ...
      * @return the cached Spec or a new one if none is cached while caching it
      */
-    @SuppressWarnings("unchecked")
-    private static <T> UpdateSpecification<?> getSpec(Class<T> clazz) {
-        if (!specMapCache.containsKey(clazz)) {
-            UpdateSpecification<T> spec;
-            try {
-                spec = (UpdateSpecification<T>) clazz.newInstance();
-                specMapCache.put(clazz, spec);
-            } catch (InstantiationException | IllegalAccessException e) {
-                throw new IllegalStateException("Could not get Specification");
-            }
-        }
-
+    static <T> UpdateSpecification<?> getSpec(Class<T> clazz) {
         return specMapCache.get(clazz);
     }
-
-    /**
-     * Method to collect all stream elements and collect them to the proper Implementation of {@link List}
-     *
-     * @param stream   {@param S} object stream
-     * @param listType An implementation of {@link List}'s class
-     * @param <S>      any type
-     * @return The result of collecting all stream elements into a List<{@param S}> of the provided {@param listType}
-     */
-    private static <S> List<S> collectToList(Stream<S> stream, Class<?> listType) {
-        if (ArrayList.class.isAssignableFrom(listType))
-            return stream.collect(toCollection(ArrayList::new));
-        if (LinkedList.class.isAssignableFrom(listType))
-            return stream.collect(toCollection(LinkedList::new));
-
-        throw new UnsupportedOperationException("Provided ListType " + listType + " not currently supported");
-    }
 }
@@ -0,0 +1,234 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.GeneratedCloner.Holder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spins the class behind every {@link GeneratedCloner}: a tiny {@link Holder} implementation with the cloner's two
+ * folded handles in static final fields, which the JIT trusts as constants. Their 'invokeExact' calls then get the
+ * whole handle chain inlined, the way a hand written copy method would be compiled.
+ * <p>Each class is written straight as class file bytes (Java 8 ones, no branches, so no stack maps) and defined by
+ * a class loader of its own, so it can be unloaded along with the class it clones</p>
+ */
+final class ClonerHolders {
+
+    private static final String HOLDER = Holder.class.getName().replace('.', '/');
+    private static final String OBJECT = "java/lang/Object";
+    private static final String METHOD_HANDLE = "java/lang/invoke/MethodHandle";
+    private static final String HANDLE_DESCRIPTOR = "L" + METHOD_HANDLE + ";";
+    private static final String COPY_DESCRIPTOR = "(Ljava/lang/Object;Ljava/lang/Object;)V";
+    private static final String UPDATE_DESCRIPTOR = "(Ljava/lang/Object;I)V";
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private ClonerHolders() {
+    }
+
+    /**
+     * @param type    the class being cloned, only used to name the holder
+     * @param copier  (Object destination, Object origin)void
+     * @param updater (Object target, int index)void
+     * @return a new instance of a new {@link Holder} class, calling {@param copier} and {@param updater}
+     */
+    static Holder spin(Class<?> type, MethodHandle copier, MethodHandle updater) {
+        final String name = GeneratedCloner.class.getName() + "$" + type.getSimpleName() + "$" + COUNT.incrementAndGet();
+        final byte[] bytes = write(name.replace('.', '/'));
+
+        // handed to the holder's static initializer, which runs on this thread
+        Holder.PENDING.set(new MethodHandle[]{copier, updater});
+        try {
+            final Class<?> holder = new Loader().define(name, bytes);
+            return (Holder) holder.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not define the cloner of " + type.getName(), e);
+        } finally {
+            Holder.PENDING.remove();
+        }
+    }
+
+    /**
+     * final class [name] implements {@link Holder} {
+     * private static final MethodHandle COPY, UPDATE; // from {@link Holder#PENDING}
+     * public void copy(Object destination, Object origin) { COPY.invokeExact(destination, origin); }
+     * public void update(Object target, int index) { UPDATE.invokeExact(target, index); }
+     * }
+     */
+    private static byte[] write(String name) {
+        final Pool pool = new Pool();
+        final int thisClass = pool.type(name);
+        final int superClass = pool.type(OBJECT);
+        final int holder = pool.type(HOLDER);
+        final int copyField = pool.field(name, "COPY", HANDLE_DESCRIPTOR);
+        final int updateField = pool.field(name, "UPDATE", HANDLE_DESCRIPTOR);
+        final int pending = pool.field(HOLDER, "PENDING", "Ljava/lang/ThreadLocal;");
+        final int get = pool.method("java/lang/ThreadLocal", "get", "()Ljava/lang/Object;");
+        final int handles = pool.type("[" + HANDLE_DESCRIPTOR);
+        final int init = pool.method(OBJECT, "<init>", "()V");
+        final int copyExact = pool.method(METHOD_HANDLE, "invokeExact", COPY_DESCRIPTOR);
+        final int updateExact = pool.method(METHOD_HANDLE, "invokeExact", UPDATE_DESCRIPTOR);
+        final int code = pool.utf8("Code");
+        // looked up again while writing the members, after the pool
+        for (String member : new String[]{"<clinit>", "copy", "update"})
+            pool.utf8(member);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            pool.writeTo(out);
+            // public final super
+            out.writeShort(0x0031);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(holder);
+
+            out.writeShort(2);
+            for (String field : new String[]{"COPY", "UPDATE"}) {
+                // private static final
+                out.writeShort(0x001A);
+                out.writeShort(pool.utf8(field));
+                out.writeShort(pool.utf8(HANDLE_DESCRIPTOR));
+                out.writeShort(0);
+            }
+
+            out.writeShort(4);
+            // aload_0, invokespecial Object.<init>, return
+            method(out, pool, 0x0001, "<init>", "()V", code, 1, 1,
+                    0x2A, 0xB7, init >> 8, init & 0xFF, 0xB1);
+            // getstatic PENDING, invokevirtual get, checkcast MethodHandle[],
+            // dup, iconst_0, aaload, putstatic COPY, iconst_1, aaload, putstatic UPDATE, return
+            method(out, pool, 0x0008, "<clinit>", "()V", code, 3, 0,
+                    0xB2, pending >> 8, pending & 0xFF, 0xB6, get >> 8, get & 0xFF, 0xC0, handles >> 8, handles & 0xFF,
+                    0x59, 0x03, 0x32, 0xB3, copyField >> 8, copyField & 0xFF,
+                    0x04, 0x32, 0xB3, updateField >> 8, updateField & 0xFF, 0xB1);
+            // getstatic COPY, aload_1, aload_2, invokevirtual invokeExact, return
+            method(out, pool, 0x0011, "copy", COPY_DESCRIPTOR, code, 3, 3,
+                    0xB2, copyField >> 8, copyField & 0xFF, 0x2B, 0x2C, 0xB6, copyExact >> 8, copyExact & 0xFF, 0xB1);
+            // getstatic UPDATE, aload_1, iload_2, invokevirtual invokeExact, return
+            method(out, pool, 0x0011, "update", UPDATE_DESCRIPTOR, code, 3, 3,
+                    0xB2, updateField >> 8, updateField & 0xFF, 0x2B, 0x1C, 0xB6, updateExact >> 8, updateExact & 0xFF, 0xB1);
+
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void method(DataOutputStream out, Pool pool, int access, String name, String descriptor, int code,
+                               int maxStack, int maxLocals, int... instructions) throws IOException {
+        out.writeShort(access);
+        out.writeShort(pool.utf8(name));
+        out.writeShort(pool.utf8(descriptor));
+        out.writeShort(1);
+
+        out.writeShort(code);
+        out.writeInt(12 + instructions.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(instructions.length);
+        for (int instruction : instructions)
+            out.writeByte(instruction);
+        // no exception table, no attributes
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    /**
+     * The constant pool of the class being written, each constant added once
+     */
+    private static final class Pool {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int count = 1;
+        private boolean written;
+
+        int utf8(String value) {
+            final Integer known = indexes.get("utf8:" + value);
+            if (known != null)
+                return known;
+            return add("utf8:" + value, 1, value, -1, -1);
+        }
+
+        int type(String internalName) {
+            final Integer known = indexes.get("class:" + internalName);
+            if (known != null)
+                return known;
+            return add("class:" + internalName, 7, null, utf8(internalName), -1);
+        }
+
+        int field(String owner, String name, String descriptor) {
+            return member(9, owner, name, descriptor);
+        }
+
+        int method(String owner, String name, String descriptor) {
+            return member(10, owner, name, descriptor);
+        }
+
+        private int member(int tag, String owner, String name, String descriptor) {
+            final String key = tag + ":" + owner + "." + name + descriptor;
+            final Integer known = indexes.get(key);
+            if (known != null)
+                return known;
+
+            final int ownerIndex = type(owner);
+            final String nameAndTypeKey = "nameAndType:" + name + descriptor;
+            Integer nameAndType = indexes.get(nameAndTypeKey);
+            if (nameAndType == null)
+                nameAndType = add(nameAndTypeKey, 12, null, utf8(name), utf8(descriptor));
+            return add(key, tag, null, ownerIndex, nameAndType);
+        }
+
+        private int add(String key, int tag, String value, int first, int second) {
+            if (written)
+                throw new IllegalStateException("Constant " + key + " added after the pool was written");
+            try {
+                out.writeByte(tag);
+                if (value != null)
+                    out.writeUTF(value);
+                if (first >= 0)
+                    out.writeShort(first);
+                if (second >= 0)
+                    out.writeShort(second);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            indexes.put(key, count);
+            return count++;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            written = true;
+            target.writeShort(count);
+            out.flush();
+            bytes.writeTo(target);
+        }
+    }
+
+    /**
+     * Defines a single holder class, child of the library's own class loader so the holder sees {@link Holder}
+     */
+    private static final class Loader extends ClassLoader {
+
+        Loader() {
+            super(ClonerHolders.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) throws ClassNotFoundException {
+            defineClass(name, bytes, 0, bytes.length);
+            // initialized here, while the handles are pending on this thread
+            return Class.forName(name, true, this);
+        }
+    }
+}
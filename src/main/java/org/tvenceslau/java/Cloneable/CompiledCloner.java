@@ -0,0 +1,29 @@
+package org.tvenceslau.java.Cloneable;
+
+/**
+ * Cloner generated at build time by the 'deep-clone-processor' annotation processor.
+ * <p>The processor writes one per concrete {@link Cloneable} class, named after the class' binary name plus
+ * {@value CompiledCloners#SUFFIX} and placed in the same package. When one exists {@link Cloneable#cloneSelf()}
+ * and {@link Cloneable#updateSelf(int)} use it instead of any runtime reflection or code generation</p>
+ *
+ * @param <T> the {@link Cloneable} class the cloner was generated for
+ *
+ * @see CompiledCloners
+ */
+public interface CompiledCloner<T> {
+
+    /**
+     * @return a new, empty, instance of {@param T}
+     */
+    T newInstance();
+
+    /**
+     * Same as {@link Cloneables#deepClone(Class, Object, Object)}
+     */
+    void copy(T origin, T destination);
+
+    /**
+     * Same as {@link Cloneables#update(Class, Cloneable, int)}
+     */
+    void update(T target, int index);
+}
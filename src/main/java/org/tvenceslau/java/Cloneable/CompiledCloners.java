@@ -0,0 +1,241 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Finds the {@link CompiledCloner}s generated at build time and provides the helpers the generated code calls.
+ * <p>The helpers are public only because generated cloners live in the users' packages.
+ * They're not meant to be called directly</p>
+ */
+public final class CompiledCloners {
+
+    /**
+     * Appended to a {@link Cloneable} class' binary name to get the name of its {@link CompiledCloner}
+     */
+    public static final String SUFFIX = "_DeepCloner";
+
+    private static final CompiledCloner<Object> NONE = new CompiledCloner<Object>() {
+        @Override
+        public Object newInstance() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void copy(Object origin, Object destination) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void update(Object target, int index) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static final ClassValue<CompiledCloner<Object>> CLONERS = new ClassValue<CompiledCloner<Object>>() {
+        @Override
+        protected CompiledCloner<Object> computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+
+    private CompiledCloners() {
+    }
+
+    /**
+     * @param clazz a {@link Cloneable} class
+     * @return the {@link CompiledCloner} generated for exactly {@param clazz}, or null if there isn't one
+     */
+    static CompiledCloner<Object> find(Class<?> clazz) {
+        final CompiledCloner<Object> cloner = CLONERS.get(clazz);
+        return cloner == NONE ? null : cloner;
+    }
+
+    /**
+     * Only ever done once per class
+     */
+    @SuppressWarnings("unchecked")
+    private static CompiledCloner<Object> load(Class<?> type) {
+        if (type.isArray() || type.isPrimitive())
+            return NONE;
+
+        final Class<?> cloner;
+        try {
+            cloner = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return NONE;
+        }
+
+        if (!CompiledCloner.class.isAssignableFrom(cloner))
+            return NONE;
+
+        try {
+            return (CompiledCloner<Object>) cloner.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the generated cloner " + cloner.getName() + ". " + e.getMessage());
+        }
+    }
+
+    /*
+     * Helpers for generated code
+     */
+
+    /**
+     * @return the clone of {@param value} if it is {@link Cloneable}, {@param value} otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V cloneValue(V value) {
+        return (V) Cloneables.handleSingleField(value);
+    }
+
+    /**
+     * @return a new container (collection, map or array) of the same type with every {@link Cloneable} element cloned,
+     * or null
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V cloneCollection(V collection) {
+        return (V) Cloneables.cloneContainer(collection);
+    }
+
+    /**
+     * For containers declared to only hold {@link ImmutableTypes}
+     *
+     * @return a new container (collection, map or array) of the same type with the very same elements, or null
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V copyContainer(V container) {
+        return (V) Containers.copyShallow(container);
+    }
+
+    /**
+     * For {@link Cloneable.ToClone} fields that can't be cloned with a direct call: methods that couldn't be resolved
+     * at build time, copy constructors and static factories. Created once, when the generated cloner is initialized
+     *
+     * @param owner     the class the cloner was generated for
+     * @param declaring the binary name of the class in {@param owner}'s hierarchy that declares the field
+     * @param name      the field's name
+     */
+    public static CustomCloner customCloner(Class<?> owner, String declaring, String name) {
+        return CustomCloner.of(field(owner, declaring, name));
+    }
+
+    /**
+     * @return a container (collection, map or array) of the same type with every {@link Cloneable} element updated,
+     * or null
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> V updateCollection(V collection, int index) {
+        return (V) Cloneables.updateContainer(collection, index);
+    }
+
+    /**
+     * Same rules as the runtime update: {@link Cloneable} values update themselves,
+     * everything else goes through {@param spec} when there is one
+     *
+     * @return the value the field should be set to
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Object update(Object value, UpdateSpecification spec, int index) {
+        if (value instanceof Cloneable) {
+            ((Cloneable) value).updateSelf(index);
+            return value;
+        }
+        return spec == null ? value : Cloneables.updateProperty(value, spec, index);
+    }
+
+    /**
+     * @return the shared instance of the {@param clazz} specification
+     */
+    @SuppressWarnings("rawtypes")
+    public static UpdateSpecification spec(Class<?> clazz) {
+        return Cloneables.getSpec(clazz);
+    }
+
+    /**
+     * For specifications whose class can't be referenced from the generated code
+     *
+     * @param owner    the class the cloner was generated for, for its class loader
+     * @param specName the specification's binary name
+     */
+    @SuppressWarnings("rawtypes")
+    public static UpdateSpecification spec(Class<?> owner, String specName) {
+        try {
+            return spec(Class.forName(specName, true, owner.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Could not get Specification " + specName);
+        }
+    }
+
+    /**
+     * For classes without an accessible no-arg constructor, see {@link Instantiators}
+     */
+    public static <V> V newInstance(Class<V> clazz) {
+        return Instantiators.construct(clazz);
+    }
+
+    /**
+     * For fields the generated code can't access directly (private, final or from other packages).
+     * Created once, when the generated cloner is initialized, and typed (Object)type, or (Object)Object for references
+     *
+     * @param owner     the class the cloner was generated for
+     * @param declaring the binary name of the class in {@param owner}'s hierarchy that declares the field
+     * @param name      the field's name
+     */
+    public static MethodHandle getter(Class<?> owner, String declaring, String name) {
+        final Field field = field(owner, declaring, name);
+        try {
+            return MethodHandles.lookup().unreflectGetter(field)
+                    .asType(MethodType.methodType(erased(field), Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not access " + declaring + "." + name + ". " + e.getMessage());
+        }
+    }
+
+    /**
+     * @see #getter(Class, String, String)
+     */
+    public static MethodHandle setter(Class<?> owner, String declaring, String name) {
+        final Field field = field(owner, declaring, name);
+        try {
+            return MethodHandles.lookup().unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, erased(field)));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not access " + declaring + "." + name + ". " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rethrows unchecked throwables as is, wraps everything else
+     */
+    public static RuntimeException rethrow(Throwable t) {
+        if (t instanceof Error)
+            throw (Error) t;
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        return new UnsupportedOperationException("Generated cloner failed. " + t.getMessage());
+    }
+
+    private static Class<?> erased(Field field) {
+        return field.getType().isPrimitive() ? field.getType() : Object.class;
+    }
+
+    private static Field field(Class<?> owner, String declaring, String name) {
+        for (Class<?> clazz = owner; clazz != null; clazz = clazz.getSuperclass()) {
+            if (!clazz.getName().equals(declaring))
+                continue;
+            try {
+                final Field field = clazz.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                break;
+            }
+        }
+        throw new IllegalStateException("Could not find " + declaring + "." + name + " in " + owner.getName()
+                + ". Was the generated cloner compiled against a different version of the class?");
+    }
+}
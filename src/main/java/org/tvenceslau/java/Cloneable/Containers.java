@@ -0,0 +1,382 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copies containers: {@link Collection}s, {@link Map}s and arrays.
+ * <p>Every copy is a new instance of the very same concrete type, sized up front from the original
+ * (so hashed containers never rehash and array backed ones never grow), with the same comparator for sorted ones.
+ * Elements, or keys and values, are passed one by one through an element function (clone, update, ...) with plain
+ * loops, no streams.</p>
+ * <ul>
+ *     <li>primitive arrays are copied with {@link Arrays#copyOf}, elements are never looked at</li>
+ *     <li>object arrays keep their component type</li>
+ *     <li>other types are created via their no-arg constructor, or replaced by the closest standard implementation
+ *     (eg: {@link Arrays#asList} or unmodifiable lists become {@link ArrayList}s)</li>
+ * </ul>
+ */
+final class Containers {
+
+    /**
+     * The accessible no-arg constructor of a container type, or NONE
+     */
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            if (!Modifier.isPublic(type.getModifiers()))
+                return NONE;
+            try {
+                return type.getConstructor();
+            } catch (NoSuchMethodException e) {
+                return NONE;
+            }
+        }
+    };
+
+    private static final Constructor<?> NONE;
+
+    static {
+        try {
+            NONE = Object.class.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Containers() {
+    }
+
+    /**
+     * @return true if fields of {@param type} are handled here
+     */
+    static boolean isContainer(Class<?> type) {
+        return type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+    }
+
+    /**
+     * @param type the generic type of a container field
+     * @return true if it is declared to only hold {@link ImmutableTypes}: arrays of immutables, or collections and
+     * maps whose type arguments are all immutable classes (eg: 'List&lt;String&gt;', 'Map&lt;Long, LocalDate&gt;')
+     */
+    static boolean holdsOnlyImmutables(Type type) {
+        if (type instanceof Class)
+            return ((Class<?>) type).isArray() && ImmutableTypes.isImmutable(((Class<?>) type).getComponentType());
+
+        if (!(type instanceof ParameterizedType))
+            return false;
+
+        for (Type argument : ((ParameterizedType) type).getActualTypeArguments())
+            if (!(argument instanceof Class) || !ImmutableTypes.isImmutable((Class<?>) argument))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return true if where {@param container}'s elements end up depends on the elements themselves (hashed and
+     * sorted containers, everything but lists, deques and arrays), so they must be complete before being added
+     */
+    static boolean isHashedOrSorted(Object container) {
+        return container instanceof Map || (container instanceof Collection
+                && !(container instanceof List) && !(container instanceof ArrayDeque));
+    }
+
+    /**
+     * @param container a {@link Collection}, {@link Map}, array, or null
+     * @param element   applied to every element, key and value
+     * @return a copy of {@param container} holding the results of {@param element}, or null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object copy(Object container, UnaryOperator<Object> element) {
+        if (container == null)
+            return null;
+        if (CloneMetrics.active)
+            CloneMetrics.elementsCopied(container.getClass(), size(container));
+
+        if (container.getClass().isArray())
+            return copyArray(container, element);
+
+        if (container instanceof Map) {
+            final Map<Object, Object> copy = newMap((Map) container);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) container).entrySet())
+                copy.put(element.apply(entry.getKey()), element.apply(entry.getValue()));
+            return copy;
+        }
+
+        final Collection<?> collection = (Collection<?>) container;
+        final Collection<Object> copy = newCollection(collection);
+        for (Object item : collection)
+            copy.add(element.apply(item));
+        return copy;
+    }
+
+    /**
+     * For containers that only hold {@link ImmutableTypes}: elements are copied in bulk, never looked at
+     *
+     * @param container a {@link Collection}, {@link Map}, array, or null
+     * @return a copy of {@param container} holding the very same elements, or null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object copyShallow(Object container) {
+        if (container == null)
+            return null;
+        if (CloneMetrics.active)
+            CloneMetrics.elementsCopied(container.getClass(), size(container));
+
+        if (container.getClass().isArray()) {
+            final Class<?> component = container.getClass().getComponentType();
+            return component.isPrimitive()
+                    ? copyPrimitiveArray(container, component)
+                    : Arrays.copyOf((Object[]) container, ((Object[]) container).length);
+        }
+
+        if (container instanceof Map) {
+            final Map<Object, Object> copy = newMap((Map) container);
+            copy.putAll((Map) container);
+            return copy;
+        }
+
+        final Collection<Object> copy = newCollection((Collection) container);
+        copy.addAll((Collection) container);
+        return copy;
+    }
+
+    /**
+     * @param container a {@link Collection}, {@link Map} or array
+     * @return how many elements it holds, keys and values for maps
+     */
+    static int size(Object container) {
+        if (container.getClass().isArray())
+            return Array.getLength(container);
+        if (container instanceof Map)
+            return ((Map<?, ?>) container).size() * 2;
+        return ((Collection<?>) container).size();
+    }
+
+    /**
+     * Same as {@link #copy(Object, UnaryOperator)} for arrays
+     */
+    static Object copyArray(Object array, UnaryOperator<Object> element) {
+        final Class<?> component = array.getClass().getComponentType();
+        if (component.isPrimitive())
+            return copyPrimitiveArray(array, component);
+
+        final Object[] copy = Arrays.copyOf((Object[]) array, ((Object[]) array).length);
+        if (canHoldCloneable(component))
+            for (int i = 0; i < copy.length; i++)
+                copy[i] = element.apply(copy[i]);
+        return copy;
+    }
+
+    private static Object copyPrimitiveArray(Object array, Class<?> component) {
+        if (component == int.class)
+            return Arrays.copyOf((int[]) array, ((int[]) array).length);
+        if (component == long.class)
+            return Arrays.copyOf((long[]) array, ((long[]) array).length);
+        if (component == double.class)
+            return Arrays.copyOf((double[]) array, ((double[]) array).length);
+        if (component == byte.class)
+            return Arrays.copyOf((byte[]) array, ((byte[]) array).length);
+        if (component == char.class)
+            return Arrays.copyOf((char[]) array, ((char[]) array).length);
+        if (component == boolean.class)
+            return Arrays.copyOf((boolean[]) array, ((boolean[]) array).length);
+        if (component == float.class)
+            return Arrays.copyOf((float[]) array, ((float[]) array).length);
+        return Arrays.copyOf((short[]) array, ((short[]) array).length);
+    }
+
+    /**
+     * Applies {@param element} to every element of an object array, in place. Primitive arrays are left alone
+     */
+    static void updateArray(Object array, UnaryOperator<Object> element) {
+        if (!canHoldCloneable(array.getClass().getComponentType()))
+            return;
+
+        final Object[] elements = (Object[]) array;
+        for (int i = 0; i < elements.length; i++)
+            elements[i] = element.apply(elements[i]);
+    }
+
+    /**
+     * Passes every element (every key and value for maps) of {@param container} to {@param action}.
+     * Primitive arrays are skipped
+     */
+    static void forEach(Object container, Consumer<Object> action) {
+        if (container.getClass().isArray()) {
+            if (!container.getClass().getComponentType().isPrimitive())
+                for (Object element : (Object[]) container)
+                    action.accept(element);
+        } else if (container instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) container).entrySet()) {
+                action.accept(entry.getKey());
+                action.accept(entry.getValue());
+            }
+        } else {
+            for (Object element : (Collection<?>) container)
+                action.accept(element);
+        }
+    }
+
+    /**
+     * Re-adds every element (entry for maps) of a hashed or sorted container, for when its elements were changed in
+     * place and may no longer hash or sort the same. The container instance is kept
+     */
+    @SuppressWarnings("unchecked")
+    static void rehash(Object container) {
+        if (container instanceof Map) {
+            final Map<Object, Object> map = (Map<Object, Object>) container;
+            final Object[] entries = new Object[map.size() * 2];
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                entries[i++] = entry.getKey();
+                entries[i++] = entry.getValue();
+            }
+            map.clear();
+            for (i = 0; i < entries.length; i += 2)
+                map.put(entries[i], entries[i + 1]);
+        } else {
+            final Collection<Object> collection = (Collection<Object>) container;
+            final Object[] elements = collection.toArray();
+            collection.clear();
+            Collections.addAll(collection, elements);
+        }
+    }
+
+    /**
+     * @param origin the collection to copy
+     * @return a new, empty, collection of {@param origin}'s type, able to hold all of {@param origin}'s elements
+     */
+    static Collection<Object> newCollection(Collection<?> origin) {
+        return newCollection(origin, origin.size());
+    }
+
+    /**
+     * @param origin a collection of the type to create, eg: an empty one
+     * @param size   how many elements it will hold
+     * @return a new, empty, collection of {@param origin}'s type, able to hold {@param size} elements
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Collection<Object> newCollection(Collection<?> origin, int size) {
+        final Class<?> type = origin.getClass();
+
+        if (type == ArrayList.class)
+            return new ArrayList<>(size);
+        if (type == HashSet.class)
+            return new HashSet<>(capacity(size));
+        if (type == LinkedHashSet.class)
+            return new LinkedHashSet<>(capacity(size));
+        if (type == ArrayDeque.class)
+            return new ArrayDeque<>(size);
+        if (type == LinkedList.class)
+            return new LinkedList<>();
+        if (type == TreeSet.class)
+            return new TreeSet<>(((TreeSet) origin).comparator());
+        if (type == PriorityQueue.class)
+            return new PriorityQueue<>(Math.max(1, size), ((PriorityQueue) origin).comparator());
+        if (type == ConcurrentSkipListSet.class)
+            return new ConcurrentSkipListSet<>(((ConcurrentSkipListSet) origin).comparator());
+        if (origin instanceof EnumSet) {
+            final EnumSet copy = ((EnumSet) origin).clone();
+            copy.clear();
+            return copy;
+        }
+
+        final Collection<Object> created = create(type);
+        if (created != null)
+            return created;
+
+        if (origin instanceof List)
+            return new ArrayList<>(size);
+        if (origin instanceof SortedSet)
+            return new TreeSet<>(((SortedSet) origin).comparator());
+        if (origin instanceof Set)
+            return new LinkedHashSet<>(capacity(size));
+        if (origin instanceof Queue)
+            return new ArrayDeque<>(size);
+
+        throw new UnsupportedOperationException("Provided Collection type " + type + " not currently supported");
+    }
+
+    /**
+     * @param origin the map to copy
+     * @return a new, empty, map of {@param origin}'s type, able to hold all of {@param origin}'s entries
+     */
+    static Map<Object, Object> newMap(Map<?, ?> origin) {
+        return newMap(origin, origin.size());
+    }
+
+    /**
+     * @param origin a map of the type to create, eg: an empty one
+     * @param size   how many entries it will hold
+     * @return a new, empty, map of {@param origin}'s type, able to hold {@param size} entries
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Map<Object, Object> newMap(Map<?, ?> origin, int size) {
+        final Class<?> type = origin.getClass();
+
+        if (type == HashMap.class)
+            return new HashMap<>(capacity(size));
+        if (type == LinkedHashMap.class)
+            return new LinkedHashMap<>(capacity(size));
+        if (type == TreeMap.class)
+            return new TreeMap<>(((TreeMap) origin).comparator());
+        if (type == IdentityHashMap.class)
+            return new IdentityHashMap<>(size);
+        if (type == ConcurrentHashMap.class)
+            return new ConcurrentHashMap<>(capacity(size));
+        if (type == ConcurrentSkipListMap.class)
+            return new ConcurrentSkipListMap<>(((ConcurrentSkipListMap) origin).comparator());
+        if (type == EnumMap.class) {
+            final EnumMap copy = new EnumMap((EnumMap) origin);
+            copy.clear();
+            return copy;
+        }
+
+        final Map<Object, Object> created = create(type);
+        if (created != null)
+            return created;
+
+        if (origin instanceof SortedMap)
+            return new TreeMap<>(((SortedMap) origin).comparator());
+        return new LinkedHashMap<>(capacity(size));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C> C create(Class<?> type) {
+        final Constructor<?> constructor = CONSTRUCTORS.get(type);
+        if (constructor == NONE)
+            return null;
+
+        try {
+            return (C) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the initial capacity of a hashed container so that {@param size} entries fit without rehashing
+     */
+    private static int capacity(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f) + 1;
+    }
+
+    /**
+     * Primitives, {@link ImmutableTypes} and final non {@link Cloneable} classes can never hold a {@link Cloneable}
+     */
+    static boolean canHoldCloneable(Class<?> type) {
+        if (ImmutableTypes.isImmutable(type))
+            return false;
+        return !Modifier.isFinal(type.getModifiers()) || Cloneable.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,244 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.Cloneable.ToClone;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@link ToClone} of a single field, resolved and checked once, when the class declaring the field is first seen,
+ * and invoked through a {@link MethodHandle} from then on.
+ * <ul>
+ *     <li>{@link ToClone.Strategy#METHOD}: the value's own no-arg method. Since it is looked up on the value's class,
+ *     it is resolved once per class the field holds. Bad definitions on the field's type fail right away, missing ones
+ *     only if the field's type is final (subclasses may still declare it)</li>
+ *     <li>{@link ToClone.Strategy#COPY_CONSTRUCTOR}: a constructor taking the value, eg: 'new ArrayList&lt;&gt;(list)'</li>
+ *     <li>{@link ToClone.Strategy#STATIC_FACTORY}: a static method taking the value, eg: 'Foo.copyOf(foo)'</li>
+ * </ul>
+ * <p>Constructors and factories are looked up on {@link ToClone#factory()}, the field's type by default, which makes
+ * them the way to deep copy third party types without going through reflection on every clone</p>
+ */
+public final class CustomCloner {
+
+    private static final MethodType CLONER = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodHandle CAST;
+
+    static {
+        try {
+            CAST = MethodHandles.lookup().findVirtual(Class.class, "cast", CLONER);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Strips anonymous class suffixes, eg: the class of an enum constant with a body is 'MockEnum$1'
+     */
+    private static final Pattern CLASS_COMPARE_PAT = Pattern.compile("^(.*?)(?:\\$\\d+)?$");
+
+    /**
+     * the field's declared type
+     */
+    private final Class<?> type;
+    private final String method;
+    private final String fieldName;
+
+    /**
+     * (Object)Object, null for {@link ToClone.Strategy#METHOD}, whose handles depend on the value's class
+     */
+    private final MethodHandle handle;
+
+    private final ClassValue<MethodHandle> methods = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> clazz) {
+            final Method found = findMethod(clazz);
+            if (found == null)
+                throw new IllegalStateException("Couldn't find a match to the provided method name '" + method
+                        + "' in " + clazz.getName());
+            return handle(found, found.getReturnType());
+        }
+    };
+
+    private CustomCloner(Field field, ToClone toClone) {
+        this.type = field.getType();
+        this.method = toClone.method();
+        this.fieldName = field.getDeclaringClass().getName() + "." + field.getName();
+
+        final Class<?> factory = toClone.factory() == void.class ? type : toClone.factory();
+        switch (toClone.strategy()) {
+            case COPY_CONSTRUCTOR:
+                final Constructor<?> constructor = findConstructor(factory);
+                this.handle = handle(constructor, factory);
+                break;
+            case STATIC_FACTORY:
+                final Method staticFactory = findFactory(factory);
+                this.handle = handle(staticFactory, staticFactory.getReturnType());
+                break;
+            default:
+                this.handle = null;
+                // bad definitions on the field's type itself fail right away
+                if (findMethod(type) != null || Modifier.isFinal(type.getModifiers()))
+                    methods.get(type);
+        }
+    }
+
+    /**
+     * @param field a {@link ToClone} annotated field
+     * @throws IllegalStateException if the annotation can't work for the field
+     */
+    static CustomCloner of(Field field) {
+        return new CustomCloner(field, field.getAnnotation(ToClone.class));
+    }
+
+    /**
+     * @param value the field's value
+     * @return its clone, or null if {@param value} is null
+     */
+    public Object copy(Object value) {
+        if (value == null)
+            return null;
+        if (CloneMetrics.active)
+            CloneMetrics.customCloned(value.getClass());
+
+        final MethodHandle target = handle != null ? handle : methods.get(value.getClass());
+        try {
+            return target.invokeExact(value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Couldn't invoke cloning method of " + fieldName + ". " + t.getMessage());
+        }
+    }
+
+    /**
+     * Looks for the no-arg method up {@param clazz}'s hierarchy, in the first class that declares any method by that name
+     *
+     * @return the method, or null if there is none
+     */
+    private Method findMethod(Class<?> clazz) {
+        for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+            final List<Method> candidates = new ArrayList<>();
+            for (Method candidate : current.getDeclaredMethods())
+                if (candidate.getName().equals(method) && !candidate.isBridge() && !candidate.isSynthetic())
+                    candidates.add(candidate);
+
+            if (candidates.isEmpty())
+                continue;
+            if (candidates.size() > 1)
+                throw new IllegalStateException("The method name must be unique. '" + method + "' in " + current.getName());
+
+            final Method found = candidates.get(0);
+            if (found.getParameterCount() != 0 || Modifier.isStatic(found.getModifiers())
+                    || !returnsType(clazz, found.getReturnType()))
+                throw new IllegalStateException("'ToClone' methods can take no parameters and must return an object of the same class as the original object. "
+                        + fieldName);
+            return found;
+        }
+        return null;
+    }
+
+    private Constructor<?> findConstructor(Class<?> factory) {
+        if (!type.isAssignableFrom(factory))
+            throw new IllegalStateException("'ToClone' copy constructors must build an object of the field's type. " + fieldName);
+
+        final List<Constructor<?>> candidates = new ArrayList<>();
+        for (Constructor<?> candidate : factory.getDeclaredConstructors())
+            if (takesValue(candidate.getParameterTypes()))
+                candidates.add(candidate);
+        if (candidates.isEmpty())
+            throw new IllegalStateException("Couldn't find a copy constructor in " + factory.getName() + " for " + fieldName);
+
+        // the most specific one, eg: 'TreeMap(SortedMap)' over 'TreeMap(Map)' for a TreeMap
+        for (Constructor<?> candidate : candidates) {
+            final Class<?> parameter = candidate.getParameterTypes()[0];
+            boolean mostSpecific = true;
+            for (Constructor<?> other : candidates)
+                mostSpecific &= other.getParameterTypes()[0].isAssignableFrom(parameter);
+            if (mostSpecific)
+                return candidate;
+        }
+        throw new IllegalStateException("Ambiguous copy constructor in " + factory.getName() + " for " + fieldName);
+    }
+
+    private Method findFactory(Class<?> factory) {
+        Method found = null;
+        for (Method candidate : factory.getDeclaredMethods()) {
+            if (!candidate.getName().equals(method) || !Modifier.isStatic(candidate.getModifiers())
+                    || !takesValue(candidate.getParameterTypes()) || candidate.isBridge())
+                continue;
+            if (found != null)
+                throw new IllegalStateException("The method name must be unique. '" + method + "' in " + factory.getName());
+            found = candidate;
+        }
+        if (found == null)
+            throw new IllegalStateException("Couldn't find a static '" + method + "' taking the field's type in "
+                    + factory.getName() + " for " + fieldName);
+        if (!returnsType(factory, found.getReturnType()))
+            throw new IllegalStateException("'ToClone' factories must return an object of the field's type. " + fieldName);
+        return found;
+    }
+
+    private boolean takesValue(Class<?>[] parameters) {
+        return parameters.length == 1 && parameters[0].isAssignableFrom(type);
+    }
+
+    /**
+     * Wider return types (eg: 'Object clone()') are allowed, their results are cast
+     */
+    private boolean returnsType(Class<?> clazz, Class<?> returnType) {
+        return returnType.isAssignableFrom(type) || type.isAssignableFrom(returnType) || compareClass(clazz, returnType);
+    }
+
+    /**
+     * @return (Object)Object, casting the result to the field's type if {@param returnType} may not be one
+     */
+    private MethodHandle handle(AccessibleObject target, Class<?> returnType) {
+        try {
+            // InaccessibleObjectException, for members of modules that aren't open, is a RuntimeException
+            target.setAccessible(true);
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = target instanceof Method
+                    ? lookup.unreflect((Method) target)
+                    : lookup.unreflectConstructor((Constructor<?>) target);
+            handle = handle.asType(CLONER);
+            if (!type.isAssignableFrom(returnType))
+                handle = MethodHandles.filterReturnValue(handle, CAST.bindTo(type));
+            return handle;
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("Couldn't access cloning method of " + fieldName + ". Do you have access?");
+        }
+    }
+
+    /**
+     * Necessary because the getClass method returns an instance I guess and we can't compare it with the returnType
+     * even if they're the same, they'll always test false.
+     * Could also use a split or something, but since the idea is to do this for big tree like structures recursively
+     * I chose the cache a single regexp
+     *
+     * Still wish I'd found a way around this...
+     *
+     * @param clazz1 class
+     * @param clazz2 class
+     * @return true if they're the same class
+     */
+    private static boolean compareClass(Class<?> clazz1, Class<?> clazz2) {
+        if (clazz1.equals(clazz2)) return true;
+
+        final Matcher m1 = CLASS_COMPARE_PAT.matcher(clazz1.getName());
+        final Matcher m2 = CLASS_COMPARE_PAT.matcher(clazz2.getName());
+        if (!m1.matches() || !m2.matches()) return false;
+
+        return m1.group(1).equals(m2.group(1));
+    }
+}
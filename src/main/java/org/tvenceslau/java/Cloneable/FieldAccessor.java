@@ -0,0 +1,325 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Reads and writes a single field's value.
+ * <p>One is created per field when its {@link ClonePlan} is built, according to {@link AccessorEngine#CURRENT}</p>
+ * <p>Access failures are reported as {@link UnsupportedOperationException}s, as they've always been in
+ * {@link Cloneables}</p>
+ */
+abstract class FieldAccessor {
+
+    final Field field;
+
+    FieldAccessor(Field field) {
+        this.field = field;
+    }
+
+    /**
+     * @param field an accessible {@link Field}
+     * @return the accessor for {@param field} from the engine picked at startup
+     */
+    static FieldAccessor of(Field field) {
+        return AccessorEngine.CURRENT.accessorFor(field);
+    }
+
+    abstract Object get(Object target);
+
+    abstract void set(Object target, Object value);
+
+    /**
+     * Copies the field's value from {@param origin} to {@param destination} as is.
+     * Implementations should avoid boxing primitive fields
+     */
+    abstract void copy(Object origin, Object destination);
+
+    int getInt(Object target) {
+        return ((Number) get(target)).intValue();
+    }
+
+    void setInt(Object target, int value) {
+        set(target, value);
+    }
+
+    long getLong(Object target) {
+        return ((Number) get(target)).longValue();
+    }
+
+    void setLong(Object target, long value) {
+        set(target, value);
+    }
+
+    double getDouble(Object target) {
+        return ((Number) get(target)).doubleValue();
+    }
+
+    void setDouble(Object target, double value) {
+        set(target, value);
+    }
+
+    UnsupportedOperationException accessFailed(Throwable t) {
+        return new UnsupportedOperationException("Could not access " + field.getDeclaringClass().getSimpleName()
+                + "." + field.getName() + ". " + t.getMessage());
+    }
+
+    /**
+     * Rethrows unchecked throwables as is, wraps everything else
+     */
+    RuntimeException rethrow(Throwable t) {
+        if (t instanceof Error)
+            throw (Error) t;
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        return accessFailed(t);
+    }
+
+    /**
+     * The original {@link Field#get(Object)}/{@link Field#set(Object, Object)} implementation
+     */
+    static final class ReflectionAccessor extends FieldAccessor {
+
+        ReflectionAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        Object get(Object target) {
+            try {
+                return field.get(target);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+
+        @Override
+        void set(Object target, Object value) {
+            try {
+                field.set(target, value);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+
+        @Override
+        void copy(Object origin, Object destination) {
+            set(destination, get(origin));
+        }
+
+        @Override
+        int getInt(Object target) {
+            try {
+                return field.getInt(target);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+
+        @Override
+        void setInt(Object target, int value) {
+            try {
+                field.setInt(target, value);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+
+        @Override
+        long getLong(Object target) {
+            try {
+                return field.getLong(target);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+
+        @Override
+        void setLong(Object target, long value) {
+            try {
+                field.setLong(target, value);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+
+        @Override
+        double getDouble(Object target) {
+            try {
+                return field.getDouble(target);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+
+        @Override
+        void setDouble(Object target, double value) {
+            try {
+                field.setDouble(target, value);
+            } catch (IllegalAccessException e) {
+                throw accessFailed(e);
+            }
+        }
+    }
+
+    /**
+     * {@link MethodHandle} based access.
+     * <p>The copy handle is the setter with the getter as a filter on its value argument, so it is typed to the
+     * field's actual type all the way through and primitives never get boxed. int, long and double fields get
+     * exactly typed getters and setters as well.</p>
+     */
+    static final class MethodHandleAccessor extends FieldAccessor {
+
+        private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final MethodHandle copier;
+
+        private final MethodHandle intGetter;
+        private final MethodHandle intSetter;
+        private final MethodHandle longGetter;
+        private final MethodHandle longSetter;
+        private final MethodHandle doubleGetter;
+        private final MethodHandle doubleSetter;
+
+        private MethodHandleAccessor(Field field, MethodHandle rawGetter, MethodHandle rawSetter) {
+            super(field);
+            this.getter = rawGetter.asType(GETTER);
+            this.setter = rawSetter.asType(SETTER);
+            // (destination, origin) -> destination.field = origin.field, no boxing in between
+            this.copier = MethodHandles.filterArguments(rawSetter, 1, rawGetter).asType(SETTER);
+
+            final Class<?> type = field.getType();
+            this.intGetter = typed(rawGetter, type, int.class, true);
+            this.intSetter = typed(rawSetter, type, int.class, false);
+            this.longGetter = typed(rawGetter, type, long.class, true);
+            this.longSetter = typed(rawSetter, type, long.class, false);
+            this.doubleGetter = typed(rawGetter, type, double.class, true);
+            this.doubleSetter = typed(rawSetter, type, double.class, false);
+        }
+
+        private static MethodHandle typed(MethodHandle raw, Class<?> fieldType, Class<?> primitive, boolean getter) {
+            if (fieldType != primitive)
+                return null;
+            return raw.asType(getter
+                    ? MethodType.methodType(primitive, Object.class)
+                    : MethodType.methodType(void.class, Object.class, primitive));
+        }
+
+        /**
+         * @param field an accessible {@link Field}
+         * @return the accessor or null if no handles could be created for {@param field}
+         */
+        static FieldAccessor tryCreate(Field field) {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                return new MethodHandleAccessor(field, lookup.unreflectGetter(field), lookup.unreflectSetter(field));
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        @Override
+        Object get(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        void set(Object target, Object value) {
+            try {
+                setter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        void copy(Object origin, Object destination) {
+            try {
+                copier.invokeExact(destination, origin);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        int getInt(Object target) {
+            if (intGetter == null)
+                return super.getInt(target);
+            try {
+                return (int) intGetter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        void setInt(Object target, int value) {
+            if (intSetter == null) {
+                super.setInt(target, value);
+                return;
+            }
+            try {
+                intSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        long getLong(Object target) {
+            if (longGetter == null)
+                return super.getLong(target);
+            try {
+                return (long) longGetter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        void setLong(Object target, long value) {
+            if (longSetter == null) {
+                super.setLong(target, value);
+                return;
+            }
+            try {
+                longSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        double getDouble(Object target) {
+            if (doubleGetter == null)
+                return super.getDouble(target);
+            try {
+                return (double) doubleGetter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        void setDouble(Object target, double value) {
+            if (doubleSetter == null) {
+                super.setDouble(target, value);
+                return;
+            }
+            try {
+                doubleSetter.invokeExact(target, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Dedicated cloner for a single {@link Cloneable} class, generated the first time the class is seen.
+ * <p>Each {@link FieldAction} of the class' {@link ClonePlan} becomes a small {@link MethodHandle}
+ * (getter -> clone logic -> setter) and those get folded into one handle per class, for cloning and for updating.
+ * Those two handles then go into static final fields of a tiny class spun for the cloned class by
+ * {@link ClonerHolders}: the JIT trusts them as constants, so the whole chain gets inlined into that class'
+ * copy/update methods, as if they had been written by hand for the class, with no loop over its fields nor switch
+ * per field left. The cloners are looked up through a {@link ClassValue}.</p>
+ * <p>New instances come from {@link Instantiators}</p>
+ * <p>Follows the exact same rules as {@link Cloneables#deepClone(Class, Object, Object)} and
+ * {@link Cloneables#update(Class, Cloneable, int)}, because the handles are built from the same plan and call the
+ * same helpers. Enabled with the {@value Cloneables#GENERATED_PROPERTY} system property</p>
+ */
+final class GeneratedCloner {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType COPY = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType UPDATE = MethodType.methodType(void.class, Object.class, int.class);
+    private static final MethodType TRANSFORM = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType UPDATE_TRANSFORM = MethodType.methodType(Object.class, Object.class, int.class);
+
+    private static final MethodHandle NOOP;
+    private static final MethodHandle CLONE_SINGLE;
+    private static final MethodHandle CLONE_CONTAINER;
+    private static final MethodHandle COPY_CONTAINER;
+    private static final MethodHandle CLONE_CUSTOM;
+    private static final MethodHandle UPDATE_SINGLE;
+    private static final MethodHandle UPDATE_CONTAINER;
+
+    static {
+        try {
+            NOOP = LOOKUP.findStatic(GeneratedCloner.class, "noop", MethodType.methodType(void.class));
+            CLONE_SINGLE = LOOKUP.findStatic(Cloneables.class, "handleSingleField", TRANSFORM);
+            CLONE_CONTAINER = LOOKUP.findStatic(Cloneables.class, "cloneContainer", TRANSFORM);
+            COPY_CONTAINER = LOOKUP.findStatic(Containers.class, "copyShallow", TRANSFORM);
+            CLONE_CUSTOM = LOOKUP.findVirtual(CustomCloner.class, "copy", TRANSFORM);
+            UPDATE_SINGLE = LOOKUP.findStatic(Cloneables.class, "updateSingleField",
+                    MethodType.methodType(Object.class, Object.class, FieldAction.class, int.class));
+            UPDATE_CONTAINER = LOOKUP.findStatic(Cloneables.class, "updateContainer", UPDATE_TRANSFORM);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final ClassValue<GeneratedCloner> CLONERS = new ClassValue<GeneratedCloner>() {
+        @Override
+        protected GeneratedCloner computeValue(Class<?> type) {
+            return new GeneratedCloner(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    /**
+     * the spun class holding this cloner's handles
+     */
+    private final Holder holder;
+
+    private GeneratedCloner(Class<?> type) {
+        this.type = type;
+
+        final ClonePlan plan = ClonePlan.of(type);
+        try {
+            this.holder = ClonerHolders.spin(type, copierFor(plan), updaterFor(plan));
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException("Could not generate a cloner for " + type.getSimpleName() + ". " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param clazz the class to clone
+     * @return the cached cloner for {@param clazz}, generating it if this is the first time the class is seen
+     */
+    static GeneratedCloner of(Class<?> clazz) {
+        return CLONERS.get(clazz);
+    }
+
+    @SuppressWarnings("unused")
+    private static void noop() {
+    }
+
+    /**
+     * @param origin an instance of this cloner's class
+     * @return a new instance with all of {@param origin}'s properties cloned
+     */
+    Object cloneObject(Object origin) {
+        final Object destination = Instantiators.newInstance(type);
+        copy(origin, destination);
+        return destination;
+    }
+
+    /**
+     * Same as {@link Cloneables#deepClone(Class, Object, Object)}
+     */
+    void copy(Object origin, Object destination) {
+        try {
+            holder.copy(destination, origin);
+        } catch (Throwable t) {
+            // invokeExact in there may throw checked exceptions nobody declares
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Same as {@link Cloneables#update(Class, Cloneable, int)}
+     */
+    void update(Object target, int index) {
+        try {
+            holder.update(target, index);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    private RuntimeException rethrow(Throwable t) {
+        if (t instanceof Error)
+            throw (Error) t;
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        return new UnsupportedOperationException(type.getSimpleName() + " copying went wrong. " + t.getMessage());
+    }
+
+    private static MethodHandle copierFor(ClonePlan plan) throws IllegalAccessException {
+        MethodHandle chain = MethodHandles.dropArguments(NOOP, 0, Object.class, Object.class);
+
+        // folding runs the combiner first, so build from the last action backwards to keep the plan's order
+        for (int i = plan.cloneActions.length - 1; i >= 0; i--)
+            chain = MethodHandles.foldArguments(chain, copyStep(plan.cloneActions[i]));
+
+        return chain.asType(COPY);
+    }
+
+    /**
+     * @return (Object destination, Object origin)void for a single field
+     */
+    private static MethodHandle copyStep(FieldAction action) throws IllegalAccessException {
+        final MethodHandle getter = LOOKUP.unreflectGetter(action.field);
+        final MethodHandle setter = LOOKUP.unreflectSetter(action.field);
+
+        final MethodHandle transform;
+        switch (action.cloneKind) {
+            case SHARE:
+                // typed to the field all the way through, so primitives are never boxed
+                return MethodHandles.filterArguments(setter, 1, getter).asType(COPY);
+            case CONTAINER:
+                transform = action.immutableElements ? COPY_CONTAINER : CLONE_CONTAINER;
+                break;
+            case CUSTOM:
+                transform = CLONE_CUSTOM.bindTo(action.custom);
+                break;
+            default:
+                transform = CLONE_SINGLE;
+        }
+
+        final MethodHandle get = getter.asType(TRANSFORM);
+        final MethodHandle set = setter.asType(COPY);
+        return MethodHandles.filterArguments(set, 1, MethodHandles.filterReturnValue(get, transform));
+    }
+
+    private static MethodHandle updaterFor(ClonePlan plan) throws IllegalAccessException {
+        MethodHandle chain = MethodHandles.dropArguments(NOOP, 0, Object.class, int.class);
+
+        for (int i = plan.updateActions.length - 1; i >= 0; i--)
+            chain = MethodHandles.foldArguments(chain, updateStep(plan.updateActions[i]));
+
+        return chain.asType(UPDATE);
+    }
+
+    /**
+     * @return (Object target, int index)void for a single field
+     */
+    private static MethodHandle updateStep(FieldAction action) throws IllegalAccessException {
+        final MethodHandle get = LOOKUP.unreflectGetter(action.field).asType(TRANSFORM);
+        final MethodHandle set = LOOKUP.unreflectSetter(action.field).asType(COPY);
+
+        final MethodHandle transform = action.updateKind == ClonePlan.UpdateKind.CONTAINER
+                ? UPDATE_CONTAINER
+                : MethodHandles.insertArguments(UPDATE_SINGLE, 1, action);
+
+        // (target, value, index) -> set(target, transform(value, index))
+        final MethodHandle apply = MethodHandles.collectArguments(set, 1, transform);
+        // (target, target, index) -> set(target, transform(get(target), index))
+        final MethodHandle read = MethodHandles.filterArguments(apply, 1, get);
+        return MethodHandles.permuteArguments(read, UPDATE, 0, 0, 1);
+    }
+
+    /**
+     * What the classes spun by {@link ClonerHolders} implement, calling the handles they hold.
+     * Public, as they are defined by class loaders of their own
+     */
+    public interface Holder {
+
+        /**
+         * (Object destination, Object origin)void and (Object target, int index)void handles, for the static
+         * initializer of the holder class being defined on this thread
+         */
+        ThreadLocal<MethodHandle[]> PENDING = new ThreadLocal<>();
+
+        /**
+         * Same as {@link Cloneables#deepClone(Class, Object, Object)}
+         */
+        void copy(Object destination, Object origin);
+
+        /**
+         * Same as {@link Cloneables#update(Class, Cloneable, int)}
+         */
+        void update(Object target, int index);
+    }
+}
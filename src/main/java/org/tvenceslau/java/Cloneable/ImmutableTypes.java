@@ -0,0 +1,64 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the types whose instances never change, so they can always be shared by reference.
+ * <p>Built in: {@link String}, the boxed primitives, {@link BigInteger}, {@link BigDecimal}, {@link UUID}, enums and
+ * everything in {@code java.time}. Classes can also be tagged with {@link Cloneable.Immutable} or registered via
+ * {@link #register(Class[])}</p>
+ * <p>Fields declared with an immutable type (and Collections, Maps and arrays declared to hold only immutable
+ * elements, eg: 'List&lt;String&gt;' or 'Map&lt;String, Integer&gt;') are resolved once, when their class'
+ * {@link ClonePlan} is built: values are shared instead of checked, and containers are copied in bulk instead of
+ * element by element. They are never updated, except via their own {@link Cloneable.ToUpdate} spec.</p>
+ * <p>Explicit annotations ({@link Cloneable.ToClone}, {@link Cloneable.NotToClone}) always win over the registry</p>
+ */
+public final class ImmutableTypes {
+
+    private static final Set<Class<?>> BUILT_IN = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class));
+
+    private static final Set<Class<?>> REGISTERED = ConcurrentHashMap.newKeySet();
+
+    private static final ClassValue<Boolean> IMMUTABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return BUILT_IN.contains(type)
+                    || type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())
+                    || type.getName().startsWith("java.time.")
+                    || type.isAnnotationPresent(Cloneable.Immutable.class)
+                    || REGISTERED.contains(type);
+        }
+    };
+
+    private ImmutableTypes() {
+    }
+
+    /**
+     * Registers {@param types} as immutable.
+     * <p>Plans are built once per class, so register before cloning any class with fields of these types</p>
+     *
+     * @param types classes whose instances never change
+     */
+    public static void register(Class<?>... types) {
+        for (Class<?> type : types) {
+            REGISTERED.add(type);
+            IMMUTABLE.remove(type);
+        }
+    }
+
+    /**
+     * @param type any class
+     * @return true if instances of {@param type} never change
+     */
+    public static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || IMMUTABLE.get(type);
+    }
+}
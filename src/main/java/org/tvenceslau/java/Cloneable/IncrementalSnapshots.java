@@ -0,0 +1,205 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repeated snapshots of a model that changes a little at a time: every snapshot shares whatever didn't change with
+ * the previous one, and only clones the nodes marked dirty since then, so its cost follows the size of the change
+ * rather than the size of the model.
+ * <p>The engine can't see writes, so changes are reported: {@link #markDirty(Object)} every {@link Cloneable} node
+ * whose own fields (or containers) changed since the last snapshot, including nodes that now reference new ones.
+ * Each snapshot records which nodes reference which, so a dirty node also dirties the path up to the model's root:
+ * those are the only nodes copied, everything below them that isn't dirty is shared.</p>
+ * <p>Identity preserving, like {@link Cloneable#cloneSelf(CloneContext)}: nodes reached several times are cloned
+ * once, and cycles are kept. {@link Cloneable.ToClone} values are cloned again with their owner,
+ * {@link Cloneable.ToUpdate} is ignored.</p>
+ * <p>Snapshots share objects with each other, so treat them as read only. Node bookkeeping is kept for as long as
+ * this lives, including nodes since removed from the model: {@link #reset()} now and then for long lived models
+ * whose shape keeps changing. Not thread safe</p>
+ *
+ * @see Cloneables#incrementalSnapshots(Cloneable)
+ */
+public final class IncrementalSnapshots<T extends Cloneable<?>> {
+
+    private final T model;
+
+    /**
+     * every node seen so far, to its clone in the latest snapshot
+     */
+    private final IdentityHashMap<Object, Object> snapshots = new IdentityHashMap<>();
+
+    /**
+     * every node seen so far, to the nodes that referenced it when they were last cloned
+     */
+    private final IdentityHashMap<Object, List<Object>> parents = new IdentityHashMap<>();
+
+    private final Set<Object> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * the nodes cloned during the current snapshot
+     */
+    private final IdentityHashMap<Object, Object> fresh = new IdentityHashMap<>();
+
+    private T latest;
+
+    IncrementalSnapshots(T model) {
+        this.model = model;
+    }
+
+    /**
+     * Reports that {@param node}'s own fields changed since the last snapshot
+     *
+     * @param node a {@link Cloneable} of the model
+     */
+    public void markDirty(Object node) {
+        final ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            final Object current = pending.pop();
+            if (!dirty.add(current))
+                continue;
+
+            final List<Object> referencedBy = parents.get(current);
+            if (referencedBy != null)
+                for (Object parent : referencedBy)
+                    pending.push(parent);
+        }
+    }
+
+    /**
+     * @return the nodes that will be cloned by the next snapshot
+     */
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * @return a clone of the model, sharing every node that didn't change with the previous snapshot.
+     * The previous snapshot itself when nothing changed. When it fails, nothing is lost: the next one clones
+     * everything that was dirty again
+     */
+    @SuppressWarnings("unchecked")
+    public T snapshot() {
+        if (latest != null && dirty.isEmpty())
+            return latest;
+
+        // read once, a listener added halfway through would find no clone to exit
+        final boolean measured = CloneMetrics.active;
+        final long start = measured ? CloneMetrics.enter() : 0;
+        try {
+            latest = (T) cloneModel();
+            dirty.clear();
+            return latest;
+        } catch (RuntimeException | Error e) {
+            // the clones made so far may be half filled: forget them, and keep everything dirty for the next try
+            for (Object origin : fresh.keySet())
+                snapshots.remove(origin);
+            throw e;
+        } finally {
+            fresh.clear();
+            if (measured)
+                CloneMetrics.exitClone(model.getClass(), start);
+        }
+    }
+
+    /**
+     * Forgets every snapshot, the next one clones the whole model
+     */
+    public void reset() {
+        snapshots.clear();
+        parents.clear();
+        dirty.clear();
+        latest = null;
+    }
+
+    /**
+     * Clones the dirty part of the model with a work stack, like {@link CloneTraversal}, so deep models can't overflow
+     * the thread's stack: every node cloned is an empty shell until its turn comes to be filled, and hashed or sorted
+     * containers only get their elements once every shell is filled
+     */
+    private Object cloneModel() {
+        final CloneTraversal.Work work = new CloneTraversal.Work();
+
+        final Object clone = node(model, work);
+        while (!work.pending.isEmpty()) {
+            final Object destination = work.pending.pop();
+            fill(work.pending.pop(), destination, work);
+        }
+        work.runDeferred();
+        return clone;
+    }
+
+    /**
+     * @return the shared clone of {@param origin} when it isn't dirty, or a new, still empty, one queued to be filled
+     */
+    private Object node(Object origin, CloneTraversal.Work work) {
+        final Object previous = snapshots.get(origin);
+        if (previous != null && !dirty.contains(origin))
+            return previous;
+
+        Object clone = fresh.get(origin);
+        if (clone != null)
+            return clone;
+
+        clone = Cloneables.newInstance(origin.getClass(), origin);
+        fresh.put(origin, clone);
+        snapshots.put(origin, clone);
+        if (CloneMetrics.active)
+            CloneMetrics.objectCloned(origin.getClass());
+
+        work.pending.push(origin);
+        work.pending.push(clone);
+        return clone;
+    }
+
+    private void fill(Object origin, Object destination, CloneTraversal.Work work) {
+        FieldAccessor accessor;
+
+        for (FieldAction action : ClonePlan.of(origin.getClass()).cloneActions) {
+            accessor = action.accessor;
+
+            switch (action.cloneKind) {
+                case SHARE:
+                    accessor.copy(origin, destination);
+                    break;
+                case CONTAINER:
+                    accessor.set(destination, action.immutableElements
+                            ? Containers.copyShallow(accessor.get(origin))
+                            : CloneTraversal.copy(accessor.get(origin), value -> value(value, origin, work), work));
+                    break;
+                case CUSTOM:
+                    accessor.set(destination, action.custom.copy(accessor.get(origin)));
+                    break;
+                default:
+                    accessor.set(destination, value(accessor.get(origin), origin, work));
+            }
+        }
+    }
+
+    private Object value(Object value, Object parent, CloneTraversal.Work work) {
+        if (!(value instanceof Cloneable))
+            return value;
+
+        List<Object> referencedBy = parents.get(value);
+        if (referencedBy == null)
+            parents.put(value, referencedBy = new ArrayList<>(1));
+        if (!containsIdentity(referencedBy, parent))
+            referencedBy.add(parent);
+
+        return node(value, work);
+    }
+
+    private static boolean containsIdentity(List<Object> list, Object element) {
+        for (Object candidate : list)
+            if (candidate == element)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy producer of the indexed clones of a template: the clone for index i is only made when a consumer asks for
+ * it, as in 'template.cloneAndUpdate(i)', so any number of variants can be produced in constant memory.
+ * <ul>
+ *     <li>{@link #stream()}/{@link #spliterator()}: pulled by the consumer. Splits evenly for parallel streams</li>
+ *     <li>{@link #publisher(Executor)}: pushed to subscribers, never more than they requested</li>
+ * </ul>
+ * <p>Consumers done with a clone can {@link #release(Cloneable)} it: the next clone is then made by cloning into
+ * it ({@link Cloneable#cloneInto(Object)}) instead of allocating a new graph. Up to {@value #POOL_CAPACITY} released
+ * clones are kept, the rest are left to the GC</p>
+ * <p>The template is only ever read, so one producer can feed any number of streams and subscribers at once</p>
+ *
+ * @see Cloneables#indexedClones(Cloneable, int, int)
+ */
+public final class IndexedClones<T extends Cloneable<?>> {
+
+    static final int POOL_CAPACITY = 256;
+
+    private final T template;
+    private final int fromIndex;
+    private final int toIndex;
+    private final ArrayBlockingQueue<T> released = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    IndexedClones(T template, int fromIndex, int toIndex) {
+        if (fromIndex > toIndex)
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+
+        this.template = template;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    /**
+     * @return the clones, in index order, made as the stream is consumed
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Spliterator<T> spliterator() {
+        return new Range(fromIndex, toIndex);
+    }
+
+    /**
+     * @param executor where every subscription emits its clones
+     * @return a publisher of the clones, in index order. Every subscriber gets the whole range
+     */
+    public ClonePublisher<T> publisher(Executor executor) {
+        return new ClonePublisher<>(this, fromIndex, toIndex, executor);
+    }
+
+    /**
+     * Hands {@param clone} back for reuse. It is overwritten by a later clone, so nothing may hold on to it
+     * (or to anything below it) anymore
+     *
+     * @param clone a clone this producer made
+     */
+    public void release(T clone) {
+        if (clone != null && clone != template)
+            released.offer(clone);
+    }
+
+    /**
+     * @return the clone for {@param index}, recycling a released one when there is any
+     */
+    @SuppressWarnings("unchecked")
+    T produce(int index) {
+        final T recycled = released.poll();
+        if (recycled == null)
+            return (T) template.cloneAndUpdate(index);
+
+        Cloneables.cloneInto(template, recycled);
+        recycled.updateSelf(index);
+        return recycled;
+    }
+
+    /**
+     * [from, to), split in halves
+     */
+    private final class Range implements Spliterator<T> {
+
+        private int from;
+        private final int to;
+
+        Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (from >= to)
+                return false;
+            action.accept(produce(from++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            while (from < to)
+                action.accept(produce(from++));
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (to - from < 2)
+                return null;
+
+            final int middle = (from + to) >>> 1;
+            final Range prefix = new Range(from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+}
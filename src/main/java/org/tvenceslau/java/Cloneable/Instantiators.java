@@ -0,0 +1,193 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Creates the new instances clones are copied into. Resolved once per class, first match wins:
+ * <ol>
+ *     <li>a factory registered via {@link #register(Class, Supplier)}</li>
+ *     <li>the class' build time {@link CompiledCloner}</li>
+ *     <li>the no-arg constructor, whatever its visibility, bound to a {@link Supplier} via {@link LambdaMetafactory}</li>
+ *     <li>no constructor at all: allocated the way deserialization does, running only {@link Object}'s constructor.
+ *     Field initializers don't run either, which is fine for clones since every field gets copied over</li>
+ * </ol>
+ * <p>Failures are reported as {@link UnsupportedOperationException}s, when an instance is requested</p>
+ */
+public final class Instantiators {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final Map<Class<?>, Supplier<?>> REGISTERED = new ConcurrentHashMap<>();
+
+    private static final ClassValue<Supplier<?>> FACTORIES = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            final Supplier<?> registered = REGISTERED.get(type);
+            if (registered != null)
+                return registered;
+
+            final CompiledCloner<Object> compiled = CompiledCloners.find(type);
+            if (compiled != null)
+                return compiled::newInstance;
+
+            return CONSTRUCTORS.get(type);
+        }
+    };
+
+    /**
+     * Only the reflective strategies, what compiled cloners fall back to
+     */
+    private static final ClassValue<Supplier<?>> CONSTRUCTORS = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            return constructorFor(type);
+        }
+    };
+
+    private Instantiators() {
+    }
+
+    /**
+     * Registers the {@param factory} every clone of {@param type} gets created with. Instances it returns are
+     * overwritten field by field, so it only has to return a new instance of exactly {@param type}.
+     * <p>Like {@link ImmutableTypes#register(Class[])}, register before cloning the class</p>
+     *
+     * @param type    the class to create
+     * @param factory creates new instances of {@param type}
+     */
+    public static <T> void register(Class<T> type, Supplier<? extends T> factory) {
+        REGISTERED.put(type, factory);
+        FACTORIES.remove(type);
+    }
+
+    /**
+     * @return a new, not yet cloned into, instance of {@param type}
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T newInstance(Class<?> type) {
+        return (T) FACTORIES.get(type).get();
+    }
+
+    /**
+     * Resolves how instances of {@param type} get created, without creating any
+     */
+    static void prepare(Class<?> type) {
+        FACTORIES.get(type);
+    }
+
+    /**
+     * Same as {@link #newInstance(Class)}, ignoring registered factories and compiled cloners
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T construct(Class<T> type) {
+        return (T) CONSTRUCTORS.get(type).get();
+    }
+
+    private static Supplier<?> constructorFor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isArray() || type.isPrimitive())
+            return unsupported(type, "it isn't a concrete class");
+
+        final Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return Allocation.supplierFor(type);
+        }
+
+        try {
+            constructor.setAccessible(true);
+            return bind(type, LOOKUP.unreflectConstructor(constructor));
+        } catch (IllegalAccessException | RuntimeException e) {
+            return Allocation.supplierFor(type);
+        }
+    }
+
+    /**
+     * Binds the no-arg constructor to a {@link Supplier}. Falls back to invoking the constructor's handle
+     * when the metafactory can't link it (eg: non public classes)
+     */
+    @SuppressWarnings("unchecked")
+    private static Supplier<?> bind(Class<?> type, MethodHandle handle) {
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                    handle, MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invoke();
+        } catch (Throwable t) {
+            final MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return (Object) generic.invokeExact();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UnsupportedOperationException("Could not create a new " + type.getSimpleName()
+                            + ". " + e.getMessage());
+                }
+            };
+        }
+    }
+
+    private static Supplier<?> unsupported(Class<?> type, String reason) {
+        return () -> {
+            throw new UnsupportedOperationException("Could not create a new " + type.getSimpleName() + ", " + reason);
+        };
+    }
+
+    /**
+     * Constructor-less allocation, through the JDK's 'ReflectionFactory': a constructor for {@code type} that only
+     * runs {@link Object}'s. Looked up reflectively, so its absence is only reported when it is needed
+     */
+    private static final class Allocation {
+
+        private static final Object FACTORY;
+        private static final Method NEW_CONSTRUCTOR;
+
+        static {
+            Object factory = null;
+            Method newConstructor = null;
+            try {
+                final Class<?> reflectionFactory = Class.forName("sun.reflect.ReflectionFactory");
+                factory = reflectionFactory.getMethod("getReflectionFactory").invoke(null);
+                newConstructor = reflectionFactory.getMethod("newConstructorForSerialization",
+                        Class.class, Constructor.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // not on this JVM
+            }
+            FACTORY = factory;
+            NEW_CONSTRUCTOR = newConstructor;
+        }
+
+        static Supplier<?> supplierFor(Class<?> type) {
+            if (NEW_CONSTRUCTOR == null)
+                return unsupported(type, "it has no no-arg constructor");
+
+            final Constructor<?> constructor;
+            try {
+                constructor = (Constructor<?>) NEW_CONSTRUCTOR.invoke(FACTORY, type, Object.class.getDeclaredConstructor());
+                constructor.setAccessible(true);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return unsupported(type, "it has no no-arg constructor");
+            }
+
+            return () -> {
+                try {
+                    return constructor.newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new UnsupportedOperationException("Could not allocate a new " + type.getSimpleName()
+                            + ". " + e.getMessage());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Copy-on-write clones: a lazy clone starts as a shallow copy of its original, sharing every nested object and
+ * container with it, and nested objects are only copied once something is about to change them.
+ * <p>Updates never touch a shared object: they run as a path copy, where every nested object and container whose
+ * (nested) fields would change is replaced by a shallow copy holding the new values, and everything else is left
+ * shared. So a variant that only changes a couple of {@link Cloneable.ToUpdate} fields costs a couple of copies,
+ * whatever the size of the graph below it.</p>
+ * <p>Writes are the caller's business: detach what is about to be written to first.
+ * Like the recursive implementation, it doesn't support cyclic graphs</p>
+ *
+ * @see Cloneables#lazyClone(Cloneable)
+ * @see Cloneables#lazyUpdate(Cloneable, int)
+ * @see Cloneables#detach(Object, String)
+ */
+final class LazyCloner {
+
+    private LazyCloner() {
+    }
+
+    /**
+     * @return a new instance of {@param origin}'s class, with all of {@param origin}'s field values
+     */
+    static <T> T shallowCopy(T origin) {
+        final T copy = Cloneables.newInstance(origin.getClass(), origin);
+        for (FieldAction action : ClonePlan.of(origin.getClass()).cloneActions)
+            action.accessor.copy(origin, copy);
+        return copy;
+    }
+
+    /**
+     * Updates {@param target}'s own fields in place, path copying whatever they reference
+     *
+     * @param target an object that isn't shared, eg: a lazy clone
+     */
+    static void updateInPlace(Object target, int index) {
+        for (FieldAction action : ClonePlan.of(target.getClass()).updateActions) {
+            final Object value = action.accessor.get(target);
+            final Object updated = updated(value, action, index);
+            if (updated != value)
+                action.accessor.set(target, updated);
+        }
+    }
+
+    /**
+     * @param object a {@link Cloneable}, possibly shared
+     * @return {@param object} if updating it changes nothing, a shallow copy of it with its updated values otherwise
+     */
+    static Object update(Object object, int index) {
+        Object copy = null;
+
+        final FieldAction[] actions = ClonePlan.of(object.getClass()).updateActions;
+        for (FieldAction action : actions) {
+            final Object value = action.accessor.get(object);
+            final Object updated = updated(value, action, index);
+            if (updated == value)
+                continue;
+
+            if (copy == null)
+                copy = shallowCopy(object);
+            action.accessor.set(copy, updated);
+        }
+        return copy == null ? object : copy;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object updated(Object value, FieldAction action, int index) {
+        if (value == null)
+            return action.spec != null && action.updateKind == ClonePlan.UpdateKind.SINGLE
+                    ? Cloneables.updateProperty(null, (UpdateSpecification) Cloneables.getSpec(action.spec), index)
+                    : null;
+
+        if (action.updateKind == ClonePlan.UpdateKind.CONTAINER)
+            return updateContainer(value, index);
+        if (value instanceof Cloneable)
+            return update(value, index);
+        if (action.spec != null)
+            return Cloneables.updateProperty(value, (UpdateSpecification) Cloneables.getSpec(action.spec), index);
+        return value;
+    }
+
+    private static Object element(Object element, int index) {
+        return element instanceof Cloneable ? update(element, index) : element;
+    }
+
+    /**
+     * @return {@param container} if none of its elements change, a copy of the same type holding the updated ones otherwise
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object updateContainer(Object container, int index) {
+        if (container.getClass().isArray()) {
+            if (container.getClass().getComponentType().isPrimitive())
+                return container;
+
+            final Object[] elements = (Object[]) container;
+            Object[] copy = null;
+            for (int i = 0; i < elements.length; i++) {
+                final Object updated = element(elements[i], index);
+                if (updated == elements[i])
+                    continue;
+                if (copy == null)
+                    copy = Arrays.copyOf(elements, elements.length);
+                copy[i] = updated;
+            }
+            return copy == null ? container : copy;
+        }
+
+        if (container instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) container;
+            final Object[] entries = new Object[map.size() * 2];
+            boolean changed = false;
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                changed |= (entries[i] = element(entry.getKey(), index)) != entry.getKey();
+                changed |= (entries[i + 1] = element(entry.getValue(), index)) != entry.getValue();
+                i += 2;
+            }
+            if (!changed)
+                return container;
+
+            final Map<Object, Object> copy = Containers.newMap(map);
+            for (i = 0; i < entries.length; i += 2)
+                copy.put(entries[i], entries[i + 1]);
+            return copy;
+        }
+
+        final Collection<?> collection = (Collection<?>) container;
+        final Object[] elements = new Object[collection.size()];
+        boolean changed = false;
+        int i = 0;
+        for (Object element : collection)
+            changed |= (elements[i++] = element(element, index)) != element;
+        if (!changed)
+            return container;
+
+        final Collection copy = Containers.newCollection(collection);
+        copy.addAll(Arrays.asList(elements));
+        return copy;
+    }
+
+    /**
+     * Replaces the value of {@param owner}'s field by a shallow copy (a copy of the container for containers),
+     * so it can be written to without touching whatever else shares it
+     *
+     * @return the new value of the field
+     */
+    static Object detach(Object owner, String fieldName) {
+        for (FieldAction action : ClonePlan.of(owner.getClass()).cloneActions) {
+            if (!action.field.getName().equals(fieldName))
+                continue;
+
+            final Object value = action.accessor.get(owner);
+            if (value == null || ImmutableTypes.isImmutable(value.getClass()))
+                return value;
+
+            final Object copy = Containers.isContainer(value.getClass())
+                    ? Containers.copy(value, element -> element)
+                    : shallowCopy(value);
+            action.accessor.set(owner, copy);
+            return copy;
+        }
+        throw new IllegalArgumentException("No field named " + fieldName + " in " + owner.getClass());
+    }
+}
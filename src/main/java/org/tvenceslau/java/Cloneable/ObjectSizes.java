@@ -0,0 +1,108 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Vector;
+
+/**
+ * Rough sizes, in bytes, of what a clone allocates, for {@link CloneCost} and {@link CloneBudget}.
+ * <p>Assumes a 64 bit JVM with compressed references: 12 byte headers (16 for arrays), 4 byte references and
+ * everything aligned to 8 bytes. Containers are sized from their type and number of elements: array backed ones get
+ * their backing array, the others a node per element</p>
+ */
+final class ObjectSizes {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    /**
+     * a hash/tree/linked node: header, key, value, next/left/right and a hash or color
+     */
+    private static final int NODE = 32;
+
+    private static final ClassValue<Long> SHALLOW = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = HEADER;
+            for (Class<?> current = type; current != null; current = current.getSuperclass())
+                for (Field field : current.getDeclaredFields())
+                    if (!Modifier.isStatic(field.getModifiers()))
+                        size += fieldSize(field.getType());
+            return align(size);
+        }
+    };
+
+    private ObjectSizes() {
+    }
+
+    /**
+     * @return the size of an instance of {@param type}, arrays excluded
+     */
+    static long shallowSize(Class<?> type) {
+        return SHALLOW.get(type);
+    }
+
+    /**
+     * @return the size of {@param value}, shallow for objects, with every slot for arrays
+     */
+    static long sizeOf(Object value) {
+        final Class<?> type = value.getClass();
+        return type.isArray()
+                ? arraySize(type.getComponentType(), Array.getLength(value))
+                : shallowSize(type);
+    }
+
+    static long arraySize(Class<?> component, int length) {
+        return align(ARRAY_HEADER + (long) length * fieldSize(component));
+    }
+
+    /**
+     * @param type     a {@link java.util.Collection}, {@link Map} or array type
+     * @param elements how many elements it holds, keys and values for maps, see {@link Containers#size(Object)}
+     * @return the size of a copy of the container, not counting the elements themselves
+     */
+    static long containerSize(Class<?> type, int elements) {
+        if (type.isArray())
+            return arraySize(type.getComponentType(), elements);
+
+        final long size = shallowSize(type);
+        if (Map.class.isAssignableFrom(type)) {
+            final int entries = elements / 2;
+            return size + arraySize(Object.class, capacity(entries)) + (long) entries * NODE;
+        }
+        if (type == ArrayList.class || type == ArrayDeque.class || type == Vector.class || type == PriorityQueue.class)
+            return size + arraySize(Object.class, elements);
+        if (HashSet.class.isAssignableFrom(type))
+            return size + shallowSize(HashMap.class) + arraySize(Object.class, capacity(elements))
+                    + (long) elements * NODE;
+        return size + (long) elements * NODE;
+    }
+
+    private static int capacity(int entries) {
+        return Integer.highestOneBit(Math.max(1, (int) (entries / 0.75f) + 1) - 1) << 1;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class)
+            return 8;
+        if (type == int.class || type == float.class)
+            return 4;
+        if (type == short.class || type == char.class)
+            return 2;
+        if (type == byte.class || type == boolean.class)
+            return 1;
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
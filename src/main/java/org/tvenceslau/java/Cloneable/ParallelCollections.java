@@ -0,0 +1,119 @@
+package org.tvenceslau.java.Cloneable;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Clones the elements of one big collection on the common {@link ForkJoinPool}.
+ * <p>The elements are snapshotted into an array, which is split in chunks, and the clone of element i is written
+ * to slot i of a second array, so the order is kept without any coordination between workers.
+ * Nested big collections, reached while cloning an element, are split in the same pool.</p>
+ * <p>With {@link CloneMetrics} on, every chunk counts its clones in a frame of its own, and the counts are added up
+ * back to the clone that reached the collection, so it reports them as part of it</p>
+ *
+ * @see Cloneables#setParallelThreshold(int)
+ */
+final class ParallelCollections {
+
+    /**
+     * How many chunks per worker a collection gets split into, so faster workers can pick up the slack
+     */
+    private static final int CHUNKS_PER_WORKER = 8;
+
+    /**
+     * Below this there is no point in forking
+     */
+    private static final int MIN_CHUNK = 256;
+
+    private ParallelCollections() {
+    }
+
+    /**
+     * @param collection the collection to clone
+     * @param element    clones a single element
+     * @return an array with the clone of every element of {@param collection} (or the element itself when it isn't
+     * {@link Cloneable}), in iteration order
+     */
+    static Object[] cloneElements(Collection<?> collection, UnaryOperator<Object> element) {
+        final Object[] origin = collection.toArray();
+        final Object[] clones = new Object[origin.length];
+
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final int chunk = Math.max(MIN_CHUNK, origin.length / (pool.getParallelism() * CHUNKS_PER_WORKER));
+        final boolean counting = CloneMetrics.active;
+        final Task task = new Task(origin, clones, element, 0, origin.length, chunk, counting);
+
+        // already on a worker (a nested collection), so just fork from here
+        if (ForkJoinTask.inForkJoinPool())
+            task.invoke();
+        else
+            pool.invoke(task);
+        if (counting)
+            CloneMetrics.objectsCloned(task.objects);
+        return clones;
+    }
+
+    /**
+     * Splits [from, to) in halves until it is at most 'chunk' long
+     */
+    private static final class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] origin;
+        private final Object[] clones;
+        private final UnaryOperator<Object> element;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final boolean counting;
+
+        /**
+         * objects cloned by this task and its subtasks, when counting
+         */
+        int objects;
+
+        Task(Object[] origin, Object[] clones, UnaryOperator<Object> element, int from, int to, int chunk,
+             boolean counting) {
+            this.origin = origin;
+            this.clones = clones;
+            this.element = element;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.counting = counting;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                if (!counting) {
+                    cloneRange();
+                    return;
+                }
+
+                final CloneMetrics.Frame previous = CloneMetrics.enterWorker();
+                try {
+                    cloneRange();
+                } finally {
+                    objects = CloneMetrics.leaveWorker(previous);
+                }
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            final Task left = new Task(origin, clones, element, from, middle, chunk, counting);
+            final Task right = new Task(origin, clones, element, middle, to, chunk, counting);
+            invokeAll(left, right);
+            objects = left.objects + right.objects;
+        }
+
+        private void cloneRange() {
+            for (int i = from; i < to; i++)
+                clones[i] = element.apply(origin[i]);
+        }
+    }
+}
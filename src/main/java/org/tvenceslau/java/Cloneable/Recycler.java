@@ -0,0 +1,199 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Clones into an existing graph of the same shape, eg: the previous clone of the same template, so a steady state
+ * clone allocates next to nothing.
+ * <ul>
+ *     <li>Nested {@link Cloneable}s are reused whenever the target holds an instance of the same class at the same
+ *     spot, and cloned into recursively</li>
+ *     <li>Collections and maps of the same class are cleared and refilled, reusing their old elements in iteration
+ *     order. Lists are overwritten position by position, and trimmed or grown as needed</li>
+ *     <li>Arrays of the same class and length are overwritten in place</li>
+ * </ul>
+ * <p>Anything else (different classes, sizes, nulls, unmodifiable containers, {@link Cloneable.ToClone} values) is
+ * cloned as usual. Always runs from the {@link ClonePlan}s, whatever the engine, and like the recursive implementation
+ * it doesn't support cyclic graphs.</p>
+ * <p>The target graph is overwritten all the way down, so it must not share anything with other graphs:
+ * a previous {@link Cloneable#cloneSelf()} is fine, a lazy clone isn't</p>
+ *
+ * @see Cloneables#cloneInto(Cloneable, Cloneable)
+ */
+final class Recycler {
+
+    private Recycler() {
+    }
+
+    /**
+     * Clones every field of {@param origin} into {@param target}, an instance of the very same class
+     *
+     * @return {@param target}
+     */
+    static <T> T cloneInto(Object origin, T target) {
+        FieldAccessor accessor;
+
+        for (FieldAction action : ClonePlan.of(origin.getClass()).cloneActions) {
+            accessor = action.accessor;
+
+            switch (action.cloneKind) {
+                case SHARE:
+                    accessor.copy(origin, target);
+                    break;
+                case CONTAINER:
+                    accessor.set(target, action.immutableElements
+                            ? refillShallow(accessor.get(origin), accessor.get(target))
+                            : refill(accessor.get(origin), accessor.get(target)));
+                    break;
+                case CUSTOM:
+                    accessor.set(target, action.custom.copy(accessor.get(origin)));
+                    break;
+                default:
+                    accessor.set(target, recycle(accessor.get(origin), accessor.get(target)));
+            }
+        }
+        return target;
+    }
+
+    /**
+     * @param value the origin's value
+     * @param old   the target's value at the same spot
+     * @return the clone of {@param value}, {@param old} itself when it could be reused
+     */
+    private static Object recycle(Object value, Object old) {
+        if (!(value instanceof Cloneable))
+            return value;
+        if (!reusable(value, old) || ImmutableTypes.isImmutable(value.getClass()))
+            return Cloneables.handleSingleField(value);
+
+        if (CloneMetrics.active)
+            CloneMetrics.objectCloned(value.getClass());
+        return cloneInto(value, old);
+    }
+
+    private static boolean reusable(Object value, Object old) {
+        return old != null && old != value && old.getClass() == value.getClass();
+    }
+
+    /**
+     * @param value a {@link Collection}, {@link Map}, array or null
+     * @param old   the target's container at the same spot
+     * @return the clone of {@param value}, {@param old} itself when it could be refilled
+     */
+    @SuppressWarnings("unchecked")
+    private static Object refill(Object value, Object old) {
+        if (value == null)
+            return null;
+        if (!reusable(value, old))
+            return Cloneables.cloneContainer(value);
+
+        if (CloneMetrics.active)
+            CloneMetrics.elementsCopied(value.getClass(), Containers.size(value));
+        try {
+            if (value.getClass().isArray())
+                return refillArray(value, old);
+            if (value instanceof List)
+                return refillList((List<Object>) value, (List<Object>) old);
+            if (value instanceof Map)
+                return refillMap((Map<Object, Object>) value, (Map<Object, Object>) old);
+            return refillCollection((Collection<Object>) value, (Collection<Object>) old);
+        } catch (UnsupportedOperationException e) {
+            // unmodifiable
+            return Cloneables.cloneContainer(value);
+        }
+    }
+
+    private static Object refillArray(Object value, Object old) {
+        if (value.getClass().getComponentType().isPrimitive())
+            return refillShallow(value, old);
+
+        final Object[] values = (Object[]) value;
+        final Object[] olds = (Object[]) old;
+        if (values.length != olds.length)
+            return Cloneables.cloneContainer(value);
+
+        for (int i = 0; i < values.length; i++)
+            olds[i] = recycle(values[i], olds[i]);
+        return old;
+    }
+
+    private static Object refillList(List<Object> value, List<Object> old) {
+        final ListIterator<Object> target = old.listIterator();
+        for (Object element : value) {
+            if (target.hasNext())
+                target.set(recycle(element, target.next()));
+            else
+                target.add(recycle(element, null));
+        }
+        if (old.size() > value.size())
+            old.subList(value.size(), old.size()).clear();
+        return old;
+    }
+
+    /**
+     * Old elements are paired with the new ones in iteration order, and only re-added once cloned into,
+     * so hashed and sorted collections see them complete
+     */
+    private static Object refillCollection(Collection<Object> value, Collection<Object> old) {
+        final Object[] previous = old.toArray();
+        old.clear();
+
+        int i = 0;
+        for (Object element : value)
+            old.add(recycle(element, i < previous.length ? previous[i++] : null));
+        return old;
+    }
+
+    private static Object refillMap(Map<Object, Object> value, Map<Object, Object> old) {
+        final Object[] previous = new Object[old.size() * 2];
+        int i = 0;
+        for (Map.Entry<Object, Object> entry : old.entrySet()) {
+            previous[i++] = entry.getKey();
+            previous[i++] = entry.getValue();
+        }
+        old.clear();
+
+        i = 0;
+        for (Map.Entry<Object, Object> entry : value.entrySet()) {
+            final Object oldKey = i < previous.length ? previous[i] : null;
+            final Object oldValue = i < previous.length ? previous[i + 1] : null;
+            old.put(recycle(entry.getKey(), oldKey), recycle(entry.getValue(), oldValue));
+            i += 2;
+        }
+        return old;
+    }
+
+    /**
+     * For containers that only hold {@link ImmutableTypes}, and primitive arrays: elements are copied as they are
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object refillShallow(Object value, Object old) {
+        if (value == null)
+            return null;
+        if (!reusable(value, old))
+            return Containers.copyShallow(value);
+
+        try {
+            if (value.getClass().isArray()) {
+                final int length = Containers.size(value);
+                if (length != Containers.size(old))
+                    return Containers.copyShallow(value);
+                System.arraycopy(value, 0, old, 0, length);
+            } else if (value instanceof Map) {
+                ((Map) old).clear();
+                ((Map) old).putAll((Map) value);
+            } else {
+                ((Collection) old).clear();
+                ((Collection) old).addAll((Collection) value);
+            }
+            return old;
+        } catch (UnsupportedOperationException e) {
+            return Containers.copyShallow(value);
+        }
+    }
+}
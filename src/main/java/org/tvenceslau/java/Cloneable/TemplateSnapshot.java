@@ -0,0 +1,728 @@
+package org.tvenceslau.java.Cloneable;
+
+import org.tvenceslau.java.Cloneable.ClonePlan.FieldAction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * A template flattened once into a compact binary layout, off heap, that clones are then materialized from without
+ * ever walking the template again.
+ * <p>The layout starts with a class table (every class in the template, with the fields its {@link ClonePlan} reads,
+ * in order) and a table of the values clones share (strings, enums, boxed and other immutable values, container
+ * prototypes), followed by the graph itself: primitive fields as raw bytes, references as indexes into the tables.
+ * Nodes reached several times are written once, so shared references and cycles are kept. Each node is only
+ * referenced where it is reached, its fields come after those of every node reached before it, so neither writing nor
+ * materializing recurses and arbitrarily deep templates are fine.</p>
+ * <p>Held in a direct {@link ByteBuffer}, or in a memory mapped file once {@link #write(Path) written}, so the heap
+ * only holds the tables. A snapshot {@link #load(Path) loaded} after a restart checks its class table against the
+ * current classes, and fails with an {@link IllegalStateException} when their fields (names or types) changed.</p>
+ * <p>Clones share the values the engine shares (strings, enums, other {@link ImmutableTypes}), and get a
+ * {@link Cloneable.ToClone} copy of the template's values, as they were when the snapshot was taken. Those are
+ * kept in Java serialized form too, so that
+ * only snapshots whose values are all {@link Serializable} can be written. Loading only deserializes the classes of
+ * the class table, their fields' declared types, {@link ImmutableTypes} and the JDK's own containers, but it still
+ * runs Java deserialization: only load snapshot files you trust. Materializing is thread safe</p>
+ *
+ * @see Cloneables#templateSnapshot(Cloneable)
+ */
+public final class TemplateSnapshot<T extends Cloneable<?>> {
+
+    private static final int MAGIC = 0x434C4E53;
+    private static final int VERSION = 3;
+
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte NODE = 2;
+    private static final byte CONSTANT = 3;
+    private static final byte ARRAY = 4;
+    private static final byte COLLECTION = 5;
+    private static final byte MAP = 6;
+
+    private static final byte STRING = 0;
+    private static final byte SERIALIZED = 1;
+    private static final byte HEAP = 2;
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, short.class, char.class, int.class,
+                long.class, float.class, double.class})
+            PRIMITIVES.put(type.getName(), type);
+    }
+
+    private final ByteBuffer buffer;
+    private final Class<?>[] classes;
+    private final ClonePlan[] plans;
+    private final Object[] constants;
+    private final int nodeCount;
+
+    /**
+     * the first value that can't be written, if any
+     */
+    private final Class<?> unwritable;
+
+    /**
+     * where the graph starts
+     */
+    private final int graph;
+
+    /**
+     * @param constants the values table, when already at hand, or null to read it from {@param buffer}
+     */
+    private TemplateSnapshot(ByteBuffer buffer, Object[] constants, Class<?> unwritable) {
+        this.buffer = buffer;
+        this.unwritable = unwritable;
+
+        final ByteBuffer in = buffer.duplicate();
+        if (in.getInt() != MAGIC || in.getInt() != VERSION)
+            throw new IllegalStateException("Not a template snapshot, or one from another version");
+
+        classes = new Class<?>[in.getInt()];
+        plans = new ClonePlan[classes.length];
+        final Set<Class<?>> trusted = new HashSet<>();
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = resolve(readString(in));
+            trusted.add(classes[i]);
+            final int fieldCount = in.getInt();
+            if (fieldCount < 0)
+                continue;
+
+            plans[i] = ClonePlan.of(classes[i]);
+            final FieldAction[] actions = plans[i].cloneActions;
+            boolean matches = actions.length == fieldCount;
+            for (int f = 0; f < fieldCount; f++) {
+                final String field = readString(in);
+                final String type = readString(in);
+                if (matches)
+                    matches = actions[f].field.getName().equals(field)
+                            && actions[f].field.getType().getName().equals(type);
+            }
+            for (FieldAction action : actions)
+                trusted.add(action.field.getType());
+            if (!matches)
+                throw new IllegalStateException("The fields of " + classes[i].getName()
+                        + " changed since the template snapshot was taken");
+        }
+
+        final int constantCount = in.getInt();
+        final int constantBytes = in.getInt();
+        if (constants != null) {
+            in.position(in.position() + constantBytes);
+        } else {
+            constants = new Object[constantCount];
+            for (int i = 0; i < constantCount; i++) {
+                final byte kind = in.get();
+                if (kind == HEAP)
+                    throw new IllegalStateException("Template snapshot value " + i + " was never written");
+                constants[i] = kind == STRING ? readString(in) : deserialize(in, trusted);
+            }
+        }
+        this.constants = constants;
+
+        nodeCount = in.getInt();
+        graph = in.position();
+    }
+
+    /**
+     * Flattens {@param template} into a direct {@link ByteBuffer}
+     */
+    static <T extends Cloneable<?>> TemplateSnapshot<T> of(T template) {
+        final Writer writer = new Writer();
+        try {
+            writer.graph(template);
+            final byte[] bytes = writer.finish();
+
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            return new TemplateSnapshot<>(buffer, writer.constants.toArray(), writer.unwritable);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not flatten " + template.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Maps a snapshot {@link #write(Path) written} earlier, possibly by another run
+     *
+     * @param file the snapshot's file
+     * @return the snapshot, backed by the mapped file
+     * @throws IOException           when {@param file} can't be read
+     * @throws IllegalStateException when the file isn't a snapshot or the template's classes changed since
+     */
+    public static <T extends Cloneable<?>> TemplateSnapshot<T> load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new TemplateSnapshot<>(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), null, null);
+        }
+    }
+
+    /**
+     * Writes this snapshot to {@param file}, replacing it, so it can be {@link #load(Path) loaded} again
+     *
+     * @throws IllegalStateException when the template holds values that aren't {@link Serializable}
+     */
+    public void write(Path file) throws IOException {
+        if (unwritable != null)
+            throw new IllegalStateException("Can't write a template snapshot holding " + unwritable.getName()
+                    + " values, they aren't Serializable");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer out = buffer.duplicate();
+            out.clear();
+            while (out.hasRemaining())
+                channel.write(out);
+        }
+    }
+
+    /**
+     * @return the size of the snapshot, in bytes
+     */
+    public int size() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return a new clone of the template
+     */
+    @SuppressWarnings("unchecked")
+    public T materialize() {
+        final ByteBuffer in = buffer.duplicate();
+        in.position(graph);
+        if (!CloneMetrics.active)
+            return (T) new Reader(in).graph();
+
+        // the root is always the first class in the table
+        final long start = CloneMetrics.enter();
+        try {
+            return (T) new Reader(in).graph();
+        } finally {
+            CloneMetrics.exitClone(classes[0], start);
+        }
+    }
+
+    /**
+     * @return a new clone of the template, with its {@link Cloneable.ToUpdate} fields updated for {@param index}
+     */
+    public T materialize(int index) {
+        final T clone = materialize();
+        clone.updateSelf(index);
+        return clone;
+    }
+
+    private static Class<?> resolve(String name) {
+        final Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null)
+            return primitive;
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null)
+            loader = TemplateSnapshot.class.getClassLoader();
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The template snapshot's class " + name + " is gone", e);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param trusted the classes that may be deserialized, besides {@link ImmutableTypes} and the JDK's containers.
+     *                Grows with the superclasses of what gets deserialized
+     */
+    private static Object deserialize(ByteBuffer in, Set<Class<?>> trusted) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass description) {
+                final Class<?> type = resolve(description.getName());
+                if (!isTrusted(type, trusted))
+                    throw new IllegalStateException("Template snapshot values can't be of class " + type.getName());
+                for (Class<?> superclass = type.getSuperclass(); superclass != null;
+                     superclass = superclass.getSuperclass())
+                    trusted.add(superclass);
+                return type;
+            }
+        }) {
+            return stream.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Could not read a template snapshot value", e);
+        }
+    }
+
+    private static boolean isTrusted(Class<?> type, Set<Class<?>> trusted) {
+        while (type.isArray())
+            type = type.getComponentType();
+        return type.isPrimitive() || trusted.contains(type) || ImmutableTypes.isImmutable(type)
+                || (type.getClassLoader() == null && Containers.isContainer(type));
+    }
+
+    /**
+     * Builds the three sections in memory, to be put together by {@link #finish()}
+     */
+    private static final class Writer {
+
+        private final Map<Class<?>, Integer> classIndexes = new HashMap<>();
+        private final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        private final DataOutputStream classTable = new DataOutputStream(classBytes);
+
+        private final IdentityHashMap<Object, Integer> constantIndexes = new IdentityHashMap<>();
+        private final IdentityHashMap<Object, Integer> customIndexes = new IdentityHashMap<>();
+        private final Map<Class<?>, Integer> prototypeIndexes = new HashMap<>();
+        private final List<Object> constants = new ArrayList<>();
+        private Class<?> unwritable;
+        private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+        private final DataOutputStream constantTable = new DataOutputStream(constantBytes);
+
+        private final IdentityHashMap<Object, Integer> nodes = new IdentityHashMap<>();
+        /**
+         * every node in {@link #nodes}, in the order they were reached
+         */
+        private final List<Object> reached = new ArrayList<>();
+        private final ByteArrayOutputStream graphBytes = new ByteArrayOutputStream();
+        private final DataOutputStream graph = new DataOutputStream(graphBytes);
+
+        byte[] finish() throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                    16 + classBytes.size() + constantBytes.size() + graphBytes.size());
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(classIndexes.size());
+            classBytes.writeTo(out);
+            out.writeInt(constants.size());
+            out.writeInt(constantBytes.size());
+            constantBytes.writeTo(out);
+            out.writeInt(nodes.size());
+            graphBytes.writeTo(out);
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Writes {@param root}, then the fields of every node reached, in the order they were reached
+         */
+        void graph(Object root) throws IOException {
+            value(root, null);
+            for (int i = 0; i < reached.size(); i++)
+                fields(reached.get(i));
+        }
+
+        /**
+         * @param action the field holding {@param value}, null for container elements
+         */
+        private void value(Object value, FieldAction action) throws IOException {
+            if (value == null) {
+                graph.writeByte(NULL);
+                return;
+            }
+
+            final Class<?> type = value.getClass();
+            if (action != null && action.cloneKind == ClonePlan.CloneKind.SHARE) {
+                constant(value);
+                return;
+            }
+            if (action != null && action.cloneKind == ClonePlan.CloneKind.CUSTOM) {
+                custom(value, action.custom);
+                return;
+            }
+            if (value instanceof Cloneable && !ImmutableTypes.isImmutable(type)) {
+                node(value);
+                return;
+            }
+            if (action == null || action.cloneKind == ClonePlan.CloneKind.CONTAINER) {
+                if (type.isArray()) {
+                    array(value);
+                    return;
+                }
+                if (value instanceof Collection) {
+                    final Collection<?> collection = (Collection<?>) value;
+                    graph.writeByte(COLLECTION);
+                    graph.writeInt(prototype(Containers.newCollection(collection, 0)));
+                    graph.writeInt(collection.size());
+                    for (Object element : collection)
+                        value(element, null);
+                    return;
+                }
+                if (value instanceof Map) {
+                    final Map<?, ?> map = (Map<?, ?>) value;
+                    graph.writeByte(MAP);
+                    graph.writeInt(prototype(Containers.newMap(map, 0)));
+                    graph.writeInt(map.size());
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        value(entry.getKey(), null);
+                        value(entry.getValue(), null);
+                    }
+                    return;
+                }
+            }
+            constant(value);
+        }
+
+        /**
+         * Writes where {@param node} is reached, its fields only come once those of the nodes reached before it did
+         */
+        private void node(Object node) throws IOException {
+            final Integer seen = nodes.get(node);
+            if (seen != null) {
+                graph.writeByte(REFERENCE);
+                graph.writeInt(seen);
+                return;
+            }
+            nodes.put(node, nodes.size());
+            reached.add(node);
+
+            graph.writeByte(NODE);
+            graph.writeInt(classIndex(node.getClass(), ClonePlan.of(node.getClass())));
+        }
+
+        private void fields(Object node) throws IOException {
+            for (FieldAction action : ClonePlan.of(node.getClass()).cloneActions) {
+                final Class<?> type = action.field.getType();
+                final FieldAccessor accessor = action.accessor;
+                if (type == int.class)
+                    graph.writeInt(accessor.getInt(node));
+                else if (type == long.class)
+                    graph.writeLong(accessor.getLong(node));
+                else if (type == double.class)
+                    graph.writeDouble(accessor.getDouble(node));
+                else if (type.isPrimitive())
+                    primitive(type, accessor.get(node));
+                else
+                    value(accessor.get(node), action);
+            }
+        }
+
+        private void array(Object array) throws IOException {
+            final Class<?> component = array.getClass().getComponentType();
+            final int length = Array.getLength(array);
+            graph.writeByte(ARRAY);
+            graph.writeInt(classIndex(component, null));
+            graph.writeInt(length);
+
+            if (component.isPrimitive()) {
+                for (int i = 0; i < length; i++)
+                    primitive(component, Array.get(array, i));
+                return;
+            }
+            for (Object element : (Object[]) array)
+                value(element, null);
+        }
+
+        private void primitive(Class<?> type, Object value) throws IOException {
+            if (type == boolean.class)
+                graph.writeBoolean((Boolean) value);
+            else if (type == byte.class)
+                graph.writeByte((Byte) value);
+            else if (type == short.class)
+                graph.writeShort((Short) value);
+            else if (type == char.class)
+                graph.writeChar((Character) value);
+            else if (type == int.class)
+                graph.writeInt((Integer) value);
+            else if (type == long.class)
+                graph.writeLong((Long) value);
+            else if (type == float.class)
+                graph.writeFloat((Float) value);
+            else
+                graph.writeDouble((Double) value);
+        }
+
+        /**
+         * @param plan the plan of a node class, null for array components
+         */
+        private int classIndex(Class<?> type, ClonePlan plan) throws IOException {
+            Integer index = classIndexes.get(type);
+            if (index != null)
+                return index;
+
+            index = classIndexes.size();
+            classIndexes.put(type, index);
+            string(classTable, type.getName());
+            if (plan == null) {
+                classTable.writeInt(-1);
+                return index;
+            }
+
+            classTable.writeInt(plan.cloneActions.length);
+            for (FieldAction action : plan.cloneActions) {
+                string(classTable, action.field.getName());
+                string(classTable, action.field.getType().getName());
+            }
+            return index;
+        }
+
+        private void constant(Object value) throws IOException {
+            Integer index = constantIndexes.get(value);
+            if (index == null) {
+                index = constantEntry(value);
+                constantIndexes.put(value, index);
+            }
+            graph.writeByte(CONSTANT);
+            graph.writeInt(index);
+        }
+
+        /**
+         * Writes a copy of {@param value}, taken now, so later changes to the template don't reach the clones.
+         * Each value is copied once however many fields hold it
+         */
+        private void custom(Object value, CustomCloner cloner) throws IOException {
+            Integer index = customIndexes.get(value);
+            if (index == null) {
+                index = constantEntry(cloner.copy(value));
+                customIndexes.put(value, index);
+            }
+            graph.writeByte(CONSTANT);
+            graph.writeInt(index);
+        }
+
+        /**
+         * Empty containers the ones in the graph are created from: one per type, unless they carry state of their
+         * own (comparators, enum types)
+         */
+        private int prototype(Object container) throws IOException {
+            if (container instanceof SortedSet || container instanceof SortedMap || container instanceof EnumSet
+                    || container instanceof EnumMap || container instanceof PriorityQueue)
+                return constantEntry(container);
+
+            Integer index = prototypeIndexes.get(container.getClass());
+            if (index == null) {
+                index = constantEntry(container);
+                prototypeIndexes.put(container.getClass(), index);
+            }
+            return index;
+        }
+
+        /**
+         * @return the index of the new entry
+         */
+        private int constantEntry(Object value) throws IOException {
+            constants.add(value);
+            if (value instanceof String) {
+                constantTable.writeByte(STRING);
+                string(constantTable, (String) value);
+                return constants.size() - 1;
+            }
+            if (!(value instanceof Serializable)) {
+                constantTable.writeByte(HEAP);
+                if (unwritable == null)
+                    unwritable = value.getClass();
+                return constants.size() - 1;
+            }
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+                stream.writeObject(value);
+            }
+            constantTable.writeByte(SERIALIZED);
+            constantTable.writeInt(bytes.size());
+            bytes.writeTo(constantTable);
+            return constants.size() - 1;
+        }
+
+        private static void string(DataOutputStream out, String value) throws IOException {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Materializes one clone, reading the graph section from its own view of the buffer.
+     * <p>Nodes are created empty where they are reached, and filled in that same order afterwards, so hashed and
+     * sorted containers only get their elements once every node is filled, like {@link CloneTraversal} does</p>
+     */
+    private final class Reader {
+
+        private final ByteBuffer in;
+        private final Object[] nodes = new Object[nodeCount];
+        private final int[] nodeClasses = new int[nodeCount];
+        private int nodesRead;
+        private final List<Runnable> deferred = new ArrayList<>();
+
+        Reader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        Object graph() {
+            final Object root = value(null);
+            for (int i = 0; i < nodesRead; i++)
+                fill(nodes[i], nodeClasses[i]);
+            // last in, first out: containers held by the elements of another are done before it
+            for (int i = deferred.size() - 1; i >= 0; i--)
+                deferred.get(i).run();
+            return root;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object value(FieldAction action) {
+            switch (in.get()) {
+                case NULL:
+                    return null;
+                case REFERENCE:
+                    return nodes[in.getInt()];
+                case CONSTANT:
+                    final Object constant = constants[in.getInt()];
+                    return action != null && action.cloneKind == ClonePlan.CloneKind.CUSTOM
+                            ? action.custom.copy(constant)
+                            : constant;
+                case NODE:
+                    return node();
+                case ARRAY:
+                    return array();
+                case COLLECTION: {
+                    final Collection<?> prototype = (Collection<?>) constants[in.getInt()];
+                    final int size = in.getInt();
+                    final Collection<Object> collection = Containers.newCollection(prototype, size);
+                    if (!Containers.isHashedOrSorted(collection)) {
+                        for (int i = 0; i < size; i++)
+                            collection.add(value(null));
+                        return collection;
+                    }
+
+                    final Object[] elements = new Object[size];
+                    deferred.add(() -> {
+                        for (Object element : elements)
+                            collection.add(element);
+                    });
+                    for (int i = 0; i < size; i++)
+                        elements[i] = value(null);
+                    return collection;
+                }
+                case MAP: {
+                    final Map<?, ?> prototype = (Map<?, ?>) constants[in.getInt()];
+                    final int size = in.getInt();
+                    final Map<Object, Object> map = Containers.newMap(prototype, size);
+                    final Object[] entries = new Object[size * 2];
+                    deferred.add(() -> {
+                        for (int i = 0; i < entries.length; i += 2)
+                            map.put(entries[i], entries[i + 1]);
+                    });
+                    for (int i = 0; i < entries.length; i++)
+                        entries[i] = value(null);
+                    return map;
+                }
+                default:
+                    throw new IllegalStateException("Corrupt template snapshot at " + (in.position() - 1));
+            }
+        }
+
+        /**
+         * @return a new, still empty, node, filled by {@link #graph()} once the nodes reached before it are
+         */
+        private Object node() {
+            final int classIndex = in.getInt();
+            final Class<?> type = classes[classIndex];
+            final Object node = Instantiators.newInstance(type);
+            nodeClasses[nodesRead] = classIndex;
+            nodes[nodesRead++] = node;
+            if (CloneMetrics.active)
+                CloneMetrics.objectCloned(type);
+            return node;
+        }
+
+        private void fill(Object node, int classIndex) {
+            for (FieldAction action : plans[classIndex].cloneActions) {
+                final Class<?> fieldType = action.field.getType();
+                final FieldAccessor accessor = action.accessor;
+                if (fieldType == int.class)
+                    accessor.setInt(node, in.getInt());
+                else if (fieldType == long.class)
+                    accessor.setLong(node, in.getLong());
+                else if (fieldType == double.class)
+                    accessor.setDouble(node, in.getDouble());
+                else if (fieldType.isPrimitive())
+                    accessor.set(node, primitive(fieldType));
+                else
+                    accessor.set(node, value(action));
+            }
+        }
+
+        private Object array() {
+            final Class<?> component = classes[in.getInt()];
+            final int length = in.getInt();
+            final int start = in.position();
+            if (component == int.class) {
+                final int[] array = new int[length];
+                in.asIntBuffer().get(array);
+                in.position(start + length * Integer.BYTES);
+                return array;
+            }
+            if (component == long.class) {
+                final long[] array = new long[length];
+                in.asLongBuffer().get(array);
+                in.position(start + length * Long.BYTES);
+                return array;
+            }
+            if (component == double.class) {
+                final double[] array = new double[length];
+                in.asDoubleBuffer().get(array);
+                in.position(start + length * Double.BYTES);
+                return array;
+            }
+            if (component == byte.class) {
+                final byte[] array = new byte[length];
+                in.get(array);
+                return array;
+            }
+
+            final Object array = Array.newInstance(component, length);
+            if (component.isPrimitive()) {
+                for (int i = 0; i < length; i++)
+                    Array.set(array, i, primitive(component));
+                return array;
+            }
+            final Object[] elements = (Object[]) array;
+            for (int i = 0; i < length; i++)
+                elements[i] = value(null);
+            return array;
+        }
+
+        private Object primitive(Class<?> type) {
+            if (type == boolean.class)
+                return in.get() != 0;
+            if (type == byte.class)
+                return in.get();
+            if (type == short.class)
+                return in.getShort();
+            if (type == char.class)
+                return in.getChar();
+            if (type == int.class)
+                return in.getInt();
+            if (type == long.class)
+                return in.getLong();
+            if (type == float.class)
+                return in.getFloat();
+            return in.getDouble();
+        }
+    }
+}
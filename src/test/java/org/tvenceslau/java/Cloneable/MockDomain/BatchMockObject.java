@@ -0,0 +1,47 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+public class BatchMockObject extends MockObject {
+
+    @ToUpdate(spec=BatchNameSpecification.class)
+    private String label;
+
+    @ToUpdate(spec=SequenceSpecification.class)
+    private int sequence;
+
+    private MockObject child;
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    public MockObject getChild() {
+        return child;
+    }
+
+    public void setChild(MockObject child) {
+        this.child = child;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchMockObject{" +
+                "label='" + label + '\'' +
+                ", sequence=" + sequence +
+                ", child=" + child +
+                ", name='" + name + '\'' +
+                ", value=" + value +
+                '}';
+    }
+}
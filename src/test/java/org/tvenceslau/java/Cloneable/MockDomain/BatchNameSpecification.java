@@ -0,0 +1,24 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import org.tvenceslau.java.Cloneable.Cloneable.BatchUpdateSpecification;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchNameSpecification implements BatchUpdateSpecification<String> {
+
+    private static final String SEPARATOR = "_BATCH_";
+
+    private static final AtomicInteger batches = new AtomicInteger();
+
+    public static int getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public void update(String originalValue, int fromIndex, Object[] results) {
+        batches.incrementAndGet();
+        final String prefix = originalValue + SEPARATOR;
+        for (int i = 0; i < results.length; i++)
+            results[i] = prefix + (fromIndex + i);
+    }
+}
@@ -0,0 +1,12 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+/**
+ * Its {@link ToClone} can never work: there is no 'Object(Object)' constructor
+ */
+public class BrokenCloneMockObject extends MockObject {
+
+    @ToClone(strategy = ToClone.Strategy.COPY_CONSTRUCTOR)
+    private Object payload;
+
+    public BrokenCloneMockObject(){}
+}
@@ -0,0 +1,18 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import org.tvenceslau.java.Cloneable.Cloneable.UpdateSpecification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CodesSpecification implements UpdateSpecification<Map<String, String>> {
+
+    private static final String SEPARATOR = "_CODE_";
+
+    @Override
+    public Map<String, String> update(Map<String, String> originalValue, int index) {
+        final Map<String, String> codes = new HashMap<>();
+        originalValue.forEach((key, code) -> codes.put(key, code + SEPARATOR + index));
+        return codes;
+    }
+}
@@ -0,0 +1,24 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+/**
+ * No no-arg constructor, so its clones are allocated without one, unless it has a registered factory
+ */
+public class ConstructorlessMockObject extends MockObject {
+
+    private final long id;
+
+    private String label = "initialized";
+
+    public ConstructorlessMockObject(long id, String label) {
+        this.id = id;
+        this.label = label;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
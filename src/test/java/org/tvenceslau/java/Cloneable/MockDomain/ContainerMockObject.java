@@ -0,0 +1,110 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Holds every kind of container other than a List. Keeps {@link MockObject}'s equals/hashCode,
+ * since arrays and deques don't compare by content
+ */
+public class ContainerMockObject extends MockObject {
+
+    private Map<MockObject, MockObject> mockObjectMap = new HashMap<>();
+
+    private Set<MockObject> mockObjectSet = new HashSet<>();
+
+    private TreeMap<String, MockObject> sortedMockObjects = new TreeMap<>();
+
+    private ArrayDeque<MockObject> mockObjectDeque = new ArrayDeque<>();
+
+    private MockObject[] mockObjectArray;
+
+    private int[] numbers;
+
+    private List<String> tags = new ArrayList<>();
+
+    private ImmutableMockObject reference;
+
+    @ToUpdate(spec=CodesSpecification.class)
+    private Map<String, String> codes = new HashMap<>();
+
+    public ContainerMockObject(){}
+
+    public Map<MockObject, MockObject> getMockObjectMap() {
+        return mockObjectMap;
+    }
+
+    public void setMockObjectMap(Map<MockObject, MockObject> mockObjectMap) {
+        this.mockObjectMap = mockObjectMap;
+    }
+
+    public Set<MockObject> getMockObjectSet() {
+        return mockObjectSet;
+    }
+
+    public void setMockObjectSet(Set<MockObject> mockObjectSet) {
+        this.mockObjectSet = mockObjectSet;
+    }
+
+    public TreeMap<String, MockObject> getSortedMockObjects() {
+        return sortedMockObjects;
+    }
+
+    public void setSortedMockObjects(TreeMap<String, MockObject> sortedMockObjects) {
+        this.sortedMockObjects = sortedMockObjects;
+    }
+
+    public ArrayDeque<MockObject> getMockObjectDeque() {
+        return mockObjectDeque;
+    }
+
+    public void setMockObjectDeque(ArrayDeque<MockObject> mockObjectDeque) {
+        this.mockObjectDeque = mockObjectDeque;
+    }
+
+    public MockObject[] getMockObjectArray() {
+        return mockObjectArray;
+    }
+
+    public void setMockObjectArray(MockObject[] mockObjectArray) {
+        this.mockObjectArray = mockObjectArray;
+    }
+
+    public int[] getNumbers() {
+        return numbers;
+    }
+
+    public void setNumbers(int[] numbers) {
+        this.numbers = numbers;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public ImmutableMockObject getReference() {
+        return reference;
+    }
+
+    public void setReference(ImmutableMockObject reference) {
+        this.reference = reference;
+    }
+
+    public Map<String, String> getCodes() {
+        return codes;
+    }
+
+    public void setCodes(Map<String, String> codes) {
+        this.codes = codes;
+    }
+}
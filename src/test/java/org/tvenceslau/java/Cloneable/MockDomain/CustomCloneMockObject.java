@@ -0,0 +1,62 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Third party types cloned through every {@link ToClone.Strategy}
+ */
+public class CustomCloneMockObject extends MockObject {
+
+    // 'Object clone()'
+    @ToClone
+    private Date created;
+
+    @ToClone(strategy = ToClone.Strategy.COPY_CONSTRUCTOR)
+    private StringBuilder notes;
+
+    @ToClone(strategy = ToClone.Strategy.STATIC_FACTORY, factory = CustomCloneMockObject.class, method = "copyOf")
+    private AtomicLong counter;
+
+    // 'Revision(Object)' and 'Revision(Comparable)' both fit, the most specific one wins
+    @ToClone(strategy = ToClone.Strategy.COPY_CONSTRUCTOR)
+    private Revision revision;
+
+    public CustomCloneMockObject(){}
+
+    private static AtomicLong copyOf(AtomicLong counter) {
+        return new AtomicLong(counter.get());
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public StringBuilder getNotes() {
+        return notes;
+    }
+
+    public void setNotes(StringBuilder notes) {
+        this.notes = notes;
+    }
+
+    public Revision getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Revision revision) {
+        this.revision = revision;
+    }
+
+    public AtomicLong getCounter() {
+        return counter;
+    }
+
+    public void setCounter(AtomicLong counter) {
+        this.counter = counter;
+    }
+}
@@ -0,0 +1,43 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Node that can share references or form cycles. Keeps {@link MockObject}'s equals/hashCode on purpose,
+ * following the references there would never end on a cycle
+ */
+public class GraphMockObject extends MockObject {
+
+    private MockObject left;
+
+    private MockObject right;
+
+    protected List<MockObject> children = new ArrayList<>();
+
+    public GraphMockObject(){}
+
+    public MockObject getLeft() {
+        return left;
+    }
+
+    public void setLeft(MockObject left) {
+        this.left = left;
+    }
+
+    public MockObject getRight() {
+        return right;
+    }
+
+    public void setRight(MockObject right) {
+        this.right = right;
+    }
+
+    public List<MockObject> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<MockObject> children) {
+        this.children = children;
+    }
+}
@@ -0,0 +1,20 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import org.tvenceslau.java.Cloneable.Cloneable;
+
+/**
+ * Never changes, so it is always shared, even though it is {@link Cloneable}
+ */
+@Cloneable.Immutable
+public class ImmutableMockObject implements Cloneable<ImmutableMockObject> {
+
+    private final String code;
+
+    public ImmutableMockObject(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,24 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+public class OwnedMockObject extends MockObject {
+
+    @NotToClone
+    private MockObject owner;
+
+    public MockObject getOwner() {
+        return owner;
+    }
+
+    public void setOwner(MockObject owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public String toString() {
+        return "OwnedMockObject{" +
+                "owner=" + owner +
+                ", name='" + name + '\'' +
+                ", value=" + value +
+                '}';
+    }
+}
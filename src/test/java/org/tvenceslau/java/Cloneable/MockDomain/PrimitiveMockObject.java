@@ -0,0 +1,71 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import java.util.Objects;
+
+public class PrimitiveMockObject extends MockObject {
+
+    private static int instances = 0;
+
+    private final int id;
+    private long counter;
+    private double ratio;
+    private boolean active;
+    private char code;
+
+    public PrimitiveMockObject(){
+        this.id = ++instances;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setCounter(long counter) {
+        this.counter = counter;
+    }
+
+    public void setRatio(double ratio) {
+        this.ratio = ratio;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public void setCode(char code) {
+        this.code = code;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PrimitiveMockObject)) return false;
+        if (!super.equals(o)) return false;
+
+        PrimitiveMockObject that = (PrimitiveMockObject) o;
+
+        if (id != that.id) return false;
+        if (counter != that.counter) return false;
+        if (Double.compare(that.ratio, ratio) != 0) return false;
+        if (active != that.active) return false;
+        return code == that.code;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), id, counter, ratio, active, code);
+    }
+
+    @Override
+    public String toString() {
+        return "PrimitiveMockObject{" +
+                "id=" + id +
+                ", counter=" + counter +
+                ", ratio=" + ratio +
+                ", active=" + active +
+                ", code=" + code +
+                ", name='" + name + '\'' +
+                ", value=" + value +
+                '}';
+    }
+}
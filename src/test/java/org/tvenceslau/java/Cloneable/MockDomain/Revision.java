@@ -0,0 +1,38 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+/**
+ * A third party like value, with copy constructors for several of its supertypes
+ */
+public class Revision implements Comparable<Revision> {
+
+    private final int number;
+    private final String copiedBy;
+
+    public Revision(int number) {
+        this.number = number;
+        this.copiedBy = null;
+    }
+
+    public Revision(Object other) {
+        this.number = ((Revision) other).number;
+        this.copiedBy = "Object";
+    }
+
+    public Revision(Comparable<Revision> other) {
+        this.number = ((Revision) other).number;
+        this.copiedBy = "Comparable";
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getCopiedBy() {
+        return copiedBy;
+    }
+
+    @Override
+    public int compareTo(Revision other) {
+        return Integer.compare(number, other.number);
+    }
+}
@@ -0,0 +1,21 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import org.tvenceslau.java.Cloneable.Cloneable.IntBatchUpdateSpecification;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SequenceSpecification implements IntBatchUpdateSpecification {
+
+    private static final AtomicInteger batches = new AtomicInteger();
+
+    public static int getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public void update(int originalValue, int fromIndex, int[] results) {
+        batches.incrementAndGet();
+        for (int i = 0; i < results.length; i++)
+            results[i] = originalValue + fromIndex + i;
+    }
+}
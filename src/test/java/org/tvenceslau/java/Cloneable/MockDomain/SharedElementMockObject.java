@@ -0,0 +1,38 @@
+package org.tvenceslau.java.Cloneable.MockDomain;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SharedElementMockObject extends MockObject {
+
+    private MockObject shared;
+
+    private Set<MockObject> set = new HashSet<>();
+
+    private Set<MockObject> frozen = Collections.emptySet();
+
+    public MockObject getShared() {
+        return shared;
+    }
+
+    public void setShared(MockObject shared) {
+        this.shared = shared;
+    }
+
+    public Set<MockObject> getSet() {
+        return set;
+    }
+
+    public void setSet(Set<MockObject> set) {
+        this.set = set;
+    }
+
+    public Set<MockObject> getFrozen() {
+        return frozen;
+    }
+
+    public void setFrozen(Set<MockObject> frozen) {
+        this.frozen = frozen;
+    }
+}
@@ -2,13 +2,68 @@ package org.tvenceslau.java.Cloneable.test;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.tvenceslau.java.Cloneable.CloneBudget;
+import org.tvenceslau.java.Cloneable.CloneContext;
+import org.tvenceslau.java.Cloneable.CloneCost;
+import org.tvenceslau.java.Cloneable.CloneListener;
+import org.tvenceslau.java.Cloneable.CloneMetrics;
+import org.tvenceslau.java.Cloneable.CloneProfile;
+import org.tvenceslau.java.Cloneable.ClonePublisher;
+import org.tvenceslau.java.Cloneable.CloneStatistics;
+import org.tvenceslau.java.Cloneable.CloneWarmup;
+import org.tvenceslau.java.Cloneable.Cloneables;
+import org.tvenceslau.java.Cloneable.IncrementalSnapshots;
+import org.tvenceslau.java.Cloneable.IndexedClones;
+import org.tvenceslau.java.Cloneable.Instantiators;
+import org.tvenceslau.java.Cloneable.MockDomain.BatchMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.BatchNameSpecification;
+import org.tvenceslau.java.Cloneable.MockDomain.BrokenCloneMockObject;
 import org.tvenceslau.java.Cloneable.MockDomain.CompostMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.ConstructorlessMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.ContainerMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.CustomCloneMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.GraphMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.ImmutableMockObject;
 import org.tvenceslau.java.Cloneable.MockDomain.MockEnum;
 import org.tvenceslau.java.Cloneable.MockDomain.MockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.OwnedMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.PrimitiveMockObject;
+import org.tvenceslau.java.Cloneable.MockDomain.Revision;
+import org.tvenceslau.java.Cloneable.MockDomain.SequenceSpecification;
+import org.tvenceslau.java.Cloneable.MockDomain.SharedElementMockObject;
 import org.tvenceslau.java.Cloneable.MockDomain.SimpleCompostMockObject;
+import org.tvenceslau.java.Cloneable.TemplateSnapshot;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class CloneablesTest {
 
@@ -36,6 +91,1118 @@ public class CloneablesTest {
         });
     }
 
+    @Test
+    public void testUpdateValues(){
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final CompostMockObject clone = mo.cloneSelf();
+        clone.updateSelf(3);
+
+        Assert.assertEquals("CompostMockObject_CLONE_3", clone.getName());
+        Assert.assertEquals("PlainMockObject_CLONE_3", clone.getMockObjectList().get(1).getName());
+
+        final SimpleCompostMockObject simple = (SimpleCompostMockObject) clone.getMockObjectList().get(0);
+        Assert.assertEquals("SimpleCompostMockObject_CLONE_3", simple.getName());
+        Assert.assertEquals("PlainMockObject", simple.getChildObject().getName());
+
+        Assert.assertEquals("CompostMockObject", mo.getName());
+        Assert.assertEquals("PlainMockObject", mo.getMockObjectList().get(1).getName());
+    }
+
+    @Test
+    public void testPrimitiveCloning(){
+        final PrimitiveMockObject mo = new PrimitiveMockObject();
+        mo.setName("PrimitiveMockObject");
+        mo.setCounter(Long.MAX_VALUE);
+        mo.setRatio(0.75);
+        mo.setActive(true);
+        mo.setCode('x');
+
+        final PrimitiveMockObject clone = mo.cloneSelf();
+        Assert.assertNotSame(mo, clone);
+        Assert.assertEquals(mo, clone);
+        Assert.assertEquals(mo.getId(), clone.getId());
+    }
+
+    @Test
+    public void testSharedReferencesCloning(){
+        final GraphMockObject root = new GraphMockObject();
+        root.setName("root");
+        final MockObject shared = generatePlain();
+        root.setLeft(shared);
+        root.setRight(shared);
+        root.getChildren().add(shared);
+
+        final GraphMockObject clone = root.cloneSelf(new CloneContext());
+        Assert.assertNotSame(shared, clone.getLeft());
+        Assert.assertSame(clone.getLeft(), clone.getRight());
+        Assert.assertSame(clone.getLeft(), clone.getChildren().get(0));
+
+        clone.updateSelf(2, new CloneContext());
+        Assert.assertEquals("PlainMockObject_CLONE_2", clone.getLeft().getName());
+        Assert.assertEquals("PlainMockObject", shared.getName());
+    }
+
+    @Test
+    public void testCyclicCloning(){
+        final GraphMockObject a = new GraphMockObject();
+        a.setName("a");
+        final GraphMockObject b = new GraphMockObject();
+        b.setName("b");
+        a.setLeft(b);
+        b.setLeft(a);
+        a.setRight(a);
+        b.getChildren().add(a);
+
+        final GraphMockObject clone = a.cloneSelf(new CloneContext());
+        final GraphMockObject cloneB = (GraphMockObject) clone.getLeft();
+        Assert.assertNotSame(b, cloneB);
+        Assert.assertSame(clone, cloneB.getLeft());
+        Assert.assertSame(clone, clone.getRight());
+        Assert.assertSame(clone, cloneB.getChildren().get(0));
+
+        clone.updateSelf(1, new CloneContext());
+        Assert.assertEquals("a_CLONE_1", clone.getName());
+        Assert.assertEquals("b_CLONE_1", cloneB.getName());
+    }
+
+    @Test
+    public void testSharedHashedElements(){
+        final MockObject shared = new MockObject();
+        shared.setName("shared");
+        final SharedElementMockObject mo = new SharedElementMockObject();
+        mo.setShared(shared);
+        mo.getSet().add(shared);
+
+        final SharedElementMockObject clone = mo.cloneSelf(new CloneContext());
+        Assert.assertNotSame(shared, clone.getShared());
+        Assert.assertSame(clone.getShared(), clone.getSet().iterator().next());
+        Assert.assertTrue(clone.getSet().contains(clone.getShared()));
+
+        clone.updateSelf(1, new CloneContext());
+        Assert.assertEquals("shared_CLONE_1", clone.getShared().getName());
+        Assert.assertTrue(clone.getSet().contains(clone.getShared()));
+
+        // unmodifiable containers can't be rehashed in place, they get replaced by a rehashed copy
+        for (int index = 1; index <= 2; index++) {
+            final MockObject element = new MockObject();
+            element.setName("frozen");
+            final SharedElementMockObject frozen = new SharedElementMockObject();
+            frozen.setFrozen(Collections.unmodifiableSet(new HashSet<>(Collections.singleton(element))));
+            if (index == 1)
+                frozen.updateSelf(index);
+            else
+                frozen.updateSelf(index, new CloneContext());
+            Assert.assertEquals("frozen_CLONE_" + index, element.getName());
+            Assert.assertTrue(frozen.getFrozen().contains(element));
+        }
+    }
+
+    @Test
+    public void testDeepGraphCloning(){
+        final int depth = 200_000;
+        final GraphMockObject head = new GraphMockObject();
+        head.setName("node");
+        GraphMockObject current = head;
+        for (int i = 1; i < depth; i++) {
+            final GraphMockObject next = new GraphMockObject();
+            next.setName("node");
+            current.setLeft(next);
+            current = next;
+        }
+
+        final CloneCost cost = Cloneables.estimate(head);
+        Assert.assertEquals(depth, cost.getDepth());
+        Assert.assertFalse(cost.isCyclic());
+        try {
+            head.cloneSelf(CloneBudget.UNLIMITED.withMaxDepth(1_000));
+            Assert.fail("Deeper than the budget");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("1000 levels deep"));
+        }
+
+        final GraphMockObject clone = head.cloneSelf(new CloneContext(depth));
+        clone.updateSelf(7, new CloneContext(depth));
+
+        int count = 0;
+        for (MockObject node = clone, original = head; node != null; count++) {
+            Assert.assertNotSame(original, node);
+            Assert.assertEquals("node_CLONE_7", node.getName());
+            node = ((GraphMockObject) node).getLeft();
+            original = ((GraphMockObject) original).getLeft();
+        }
+        Assert.assertEquals(depth, count);
+    }
+
+    @Test
+    public void testBulkCloning(){
+        final CompostMockObject template = (CompostMockObject) generateCompost();
+
+        final List<CompostMockObject> clones = Cloneables.bulkClone(template, 10, 5_010);
+        Assert.assertEquals(5_000, clones.size());
+        for (int i = 0; i < clones.size(); i++) {
+            final CompostMockObject clone = clones.get(i);
+            Assert.assertNotSame(template, clone);
+            Assert.assertEquals("CompostMockObject_CLONE_" + (i + 10), clone.getName());
+            Assert.assertEquals("PlainMockObject_CLONE_" + (i + 10), clone.getMockObjectList().get(1).getName());
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<CompostMockObject> executed = Cloneables.bulkClone(template, 0, 100, executor);
+            for (int i = 0; i < executed.size(); i++)
+                Assert.assertEquals("CompostMockObject_CLONE_" + i, executed.get(i).getName());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("CompostMockObject", template.getName());
+    }
+
+    @Test
+    public void testBatchUpdates(){
+        final BatchMockObject child = new BatchMockObject();
+        child.setLabel("Child");
+        child.setSequence(7);
+        final BatchMockObject template = new BatchMockObject();
+        template.setName("BatchMockObject");
+        template.setLabel("Root");
+        template.setSequence(100);
+        template.setChild(child);
+
+        final int nameBatches = BatchNameSpecification.getBatches();
+        final int sequenceBatches = SequenceSpecification.getBatches();
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        final List<BatchMockObject> clones;
+        try {
+            clones = Cloneables.bulkClone(template, 0, 2_000, pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < clones.size(); i++) {
+            final BatchMockObject clone = clones.get(i);
+            Assert.assertEquals("Root_BATCH_" + i, clone.getLabel());
+            Assert.assertEquals(100 + i, clone.getSequence());
+            Assert.assertEquals("BatchMockObject_CLONE_" + i, clone.getName());
+            Assert.assertEquals("Child_BATCH_" + i, ((BatchMockObject) clone.getChild()).getLabel());
+            Assert.assertEquals(7 + i, ((BatchMockObject) clone.getChild()).getSequence());
+        }
+        Assert.assertTrue(BatchNameSpecification.getBatches() - nameBatches < 2 * clones.size() / 10);
+        Assert.assertTrue(SequenceSpecification.getBatches() - sequenceBatches < 2 * clones.size() / 10);
+
+        // equal values in two nodes of one clone get a result each, as they would one at a time
+        child.setLabel("Root");
+        final List<BatchMockObject> equals = Cloneables.bulkClone(template, 0, 300);
+        for (int i = 0; i < equals.size(); i++) {
+            final BatchMockObject clone = equals.get(i);
+            final BatchMockObject clonedChild = (BatchMockObject) clone.getChild();
+            Assert.assertEquals("Root_BATCH_" + i, clone.getLabel());
+            Assert.assertEquals("Root_BATCH_" + i, clonedChild.getLabel());
+            Assert.assertNotSame(clone.getLabel(), clonedChild.getLabel());
+        }
+        child.setLabel("Child");
+
+        // outside of bulk cloning, batch specifications still update one index at a time
+        final BatchMockObject single = template.cloneAndUpdate(42);
+        Assert.assertEquals("Root_BATCH_42", single.getLabel());
+        Assert.assertEquals(142, single.getSequence());
+        Assert.assertEquals("Root", template.getLabel());
+        Assert.assertEquals(100, template.getSequence());
+    }
+
+    @Test
+    public void testCloneAndUpdate(){
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final CompostMockObject twoPasses = mo.cloneSelf();
+        twoPasses.updateSelf(3);
+
+        final CompostMockObject onePass = mo.cloneAndUpdate(3);
+        Assert.assertNotSame(mo, onePass);
+        Assert.assertNotSame(mo.getMockObjectList(), onePass.getMockObjectList());
+        Assert.assertEquals(twoPasses, onePass);
+        Assert.assertEquals("CompostMockObject", mo.getName());
+
+        final ContainerMockObject containers = generateContainers();
+        final ContainerMockObject containersClone = containers.cloneAndUpdate(6);
+        assertContainersUpdated(containersClone, 6);
+        Assert.assertEquals("PlainMockObject", containers.getMockObjectArray()[0].getName());
+
+        // containers are updated in place
+        final List<MockObject> list = twoPasses.getMockObjectList();
+        final Map<MockObject, MockObject> map = containersClone.getMockObjectMap();
+        twoPasses.updateSelf(4);
+        containersClone.updateSelf(7);
+        Assert.assertSame(list, twoPasses.getMockObjectList());
+        Assert.assertSame(map, containersClone.getMockObjectMap());
+        final Map.Entry<MockObject, MockObject> entry = map.entrySet().iterator().next();
+        Assert.assertEquals("PlainMockObject_CLONE_6_CLONE_7", entry.getKey().getName());
+        Assert.assertSame(entry.getValue(), map.get(entry.getKey()));
+    }
+
+    @Test
+    public void testCloneInto(){
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final CompostMockObject clone = mo.cloneSelf();
+        clone.updateSelf(1);
+        final List<MockObject> list = clone.getMockObjectList();
+        final SimpleCompostMockObject simple = (SimpleCompostMockObject) list.get(0);
+        final MockObject child = simple.getChildObject();
+
+        mo.setName("Recycled");
+        Assert.assertSame(clone, mo.cloneInto(clone));
+        Assert.assertEquals(mo, clone);
+        Assert.assertSame(list, clone.getMockObjectList());
+        Assert.assertSame(simple, clone.getMockObjectList().get(0));
+        Assert.assertSame(child, simple.getChildObject());
+        Assert.assertNotSame(mo.getMockObjectList().get(0), simple);
+
+        // lists grow and shrink in place
+        mo.getMockObjectList().add(generatePlain());
+        mo.cloneInto(clone);
+        Assert.assertEquals(mo, clone);
+        Assert.assertSame(list, clone.getMockObjectList());
+        mo.getMockObjectList().remove(2);
+        mo.getMockObjectList().remove(1);
+        mo.cloneInto(clone);
+        Assert.assertEquals(mo, clone);
+        Assert.assertEquals(1, list.size());
+
+        final ContainerMockObject containers = generateContainers();
+        final ContainerMockObject containersClone = containers.cloneSelf();
+        containersClone.updateSelf(2);
+        final Map<MockObject, MockObject> map = containersClone.getMockObjectMap();
+        final MockObject[] array = containersClone.getMockObjectArray();
+        final MockObject element = array[0];
+        containers.cloneInto(containersClone);
+        assertContainersCloned(containers, containersClone);
+        Assert.assertSame(map, containersClone.getMockObjectMap());
+        Assert.assertSame(array, containersClone.getMockObjectArray());
+        Assert.assertSame(element, containersClone.getMockObjectArray()[0]);
+        containersClone.updateSelf(3);
+        assertContainersUpdated(containersClone, 3);
+
+        try {
+            mo.cloneInto(mo);
+            Assert.fail("An object can't be cloned into itself");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIncrementalSnapshots(){
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final IncrementalSnapshots<CompostMockObject> snapshots = Cloneables.incrementalSnapshots(mo);
+
+        final CompostMockObject first = snapshots.snapshot();
+        Assert.assertEquals(mo, first);
+        Assert.assertNotSame(mo.getMockObjectList().get(0), first.getMockObjectList().get(0));
+        Assert.assertSame(first, snapshots.snapshot());
+
+        // only the changed node and the path to it are cloned again
+        final MockObject plain = mo.getMockObjectList().get(1);
+        plain.setName("Changed");
+        snapshots.markDirty(plain);
+        Assert.assertEquals(2, snapshots.dirtyCount());
+
+        final CompostMockObject second = snapshots.snapshot();
+        Assert.assertEquals(mo, second);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("Changed", second.getMockObjectList().get(1).getName());
+        Assert.assertNotEquals("Changed", first.getMockObjectList().get(1).getName());
+        Assert.assertSame(first.getMockObjectList().get(0), second.getMockObjectList().get(0));
+        Assert.assertEquals(0, snapshots.dirtyCount());
+
+        // new nodes are cloned with the node that references them
+        mo.getMockObjectList().add(generatePlain());
+        snapshots.markDirty(mo);
+        final CompostMockObject third = snapshots.snapshot();
+        Assert.assertEquals(mo, third);
+        Assert.assertSame(second.getMockObjectList().get(1), third.getMockObjectList().get(1));
+        Assert.assertNotSame(mo.getMockObjectList().get(2), third.getMockObjectList().get(2));
+
+        snapshots.reset();
+        final CompostMockObject fourth = snapshots.snapshot();
+        Assert.assertEquals(mo, fourth);
+        Assert.assertNotSame(third.getMockObjectList().get(0), fourth.getMockObjectList().get(0));
+
+        // a failed snapshot keeps its changes for the next one
+        plain.setName("Changed again");
+        snapshots.markDirty(plain);
+        mo.getMockObjectList().add(new BrokenCloneMockObject());
+        snapshots.markDirty(mo);
+        try {
+            snapshots.snapshot();
+            Assert.fail("BrokenCloneMockObject can't be cloned");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        mo.getMockObjectList().remove(3);
+        final CompostMockObject fifth = snapshots.snapshot();
+        Assert.assertEquals(mo, fifth);
+        Assert.assertEquals("Changed again", fifth.getMockObjectList().get(1).getName());
+        Assert.assertNotSame(fourth.getMockObjectList().get(1), fifth.getMockObjectList().get(1));
+        Assert.assertSame(fourth.getMockObjectList().get(0), fifth.getMockObjectList().get(0));
+    }
+
+    @Test
+    public void testDeepIncrementalSnapshots(){
+        final int depth = 200_000;
+        final GraphMockObject head = new GraphMockObject();
+        head.setName("node");
+        GraphMockObject tail = head;
+        for (int i = 1; i < depth; i++) {
+            final GraphMockObject next = new GraphMockObject();
+            next.setName("node");
+            tail.setLeft(next);
+            tail = next;
+        }
+
+        final IncrementalSnapshots<GraphMockObject> snapshots = Cloneables.incrementalSnapshots(head);
+        final GraphMockObject first = snapshots.snapshot();
+        tail.setName("tail");
+        snapshots.markDirty(tail);
+        Assert.assertEquals(depth, snapshots.dirtyCount());
+
+        final GraphMockObject second = snapshots.snapshot();
+        int count = 0;
+        MockObject node = second;
+        for (MockObject previous = first; node != null; count++) {
+            Assert.assertNotSame(previous, node);
+            if (((GraphMockObject) node).getLeft() == null)
+                break;
+            node = ((GraphMockObject) node).getLeft();
+            previous = ((GraphMockObject) previous).getLeft();
+        }
+        Assert.assertEquals(depth - 1, count);
+        Assert.assertEquals("tail", node.getName());
+    }
+
+    @Test
+    public void testIncrementalSnapshotsOfHashedCycles(){
+        // the set's element is only complete once the whole cycle is
+        final ContainerMockObject owner = new ContainerMockObject();
+        owner.setName("owner");
+        final GraphMockObject element = new GraphMockObject();
+        element.setName("element");
+        element.setLeft(owner);
+        owner.getMockObjectSet().add(element);
+        owner.getMockObjectMap().put(element, owner);
+
+        final IncrementalSnapshots<ContainerMockObject> snapshots = Cloneables.incrementalSnapshots(owner);
+        for (int i = 0; i < 2; i++) {
+            final ContainerMockObject snapshot = snapshots.snapshot();
+            final GraphMockObject clone = (GraphMockObject) snapshot.getMockObjectSet().iterator().next();
+            Assert.assertNotSame(element, clone);
+            Assert.assertSame(snapshot, clone.getLeft());
+            Assert.assertTrue(snapshot.getMockObjectSet().contains(clone));
+            Assert.assertSame(snapshot, snapshot.getMockObjectMap().get(clone));
+
+            element.setName("element again");
+            snapshots.markDirty(element);
+        }
+    }
+
+    @Test
+    public void testTemplateSnapshots() throws IOException {
+        final ContainerMockObject containers = generateContainers();
+        final TemplateSnapshot<ContainerMockObject> containersSnapshot = Cloneables.templateSnapshot(containers);
+        assertContainersCloned(containers, containersSnapshot.materialize());
+        assertContainersUpdated(containersSnapshot.materialize(3), 3);
+
+        final GraphMockObject a = new GraphMockObject();
+        a.setName("a");
+        final GraphMockObject b = new GraphMockObject();
+        b.setName("b");
+        a.setLeft(b);
+        b.setLeft(a);
+        a.getChildren().add(b);
+        final GraphMockObject graph = Cloneables.templateSnapshot(a).materialize();
+        Assert.assertSame(graph, ((GraphMockObject) graph.getLeft()).getLeft());
+        Assert.assertSame(graph.getLeft(), graph.getChildren().get(0));
+
+        // persisted and mapped back
+        final CompostMockObject compost = (CompostMockObject) generateCompost();
+        final Path file = Files.createTempFile("template", ".snapshot");
+        try {
+            Cloneables.templateSnapshot(compost).write(file);
+            final TemplateSnapshot<CompostMockObject> loaded = TemplateSnapshot.load(file);
+            Assert.assertEquals(compost, loaded.materialize());
+            Assert.assertEquals(compost.cloneAndUpdate(4), loaded.materialize(4));
+            Assert.assertNotSame(loaded.materialize().getMockObjectList(), loaded.materialize().getMockObjectList());
+
+            // field types are checked, not only names
+            Cloneables.templateSnapshot(compost).write(file);
+            assertUnloadable(file, "java.lang.Integer", "java.lang.Integex", "changed");
+            // only the template's own classes and known safe ones are deserialized
+            Cloneables.templateSnapshot(compost).write(file);
+            assertUnloadable(file, "java.util.ArrayList", "java.lang.Throwable", "java.lang.Throwable");
+
+            containersSnapshot.write(file);
+            Assert.fail("ImmutableMockObject isn't Serializable");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Replaces the first {@param from} of {@param file} by {@param to}, as the same length, and checks it can't be
+     * loaded anymore
+     */
+    @Test
+    public void testDeepTemplateSnapshots(){
+        final int depth = 200_000;
+        final GraphMockObject head = new GraphMockObject();
+        head.setName("node");
+        GraphMockObject current = head;
+        for (int i = 1; i < depth; i++) {
+            final GraphMockObject next = new GraphMockObject();
+            next.setName("node");
+            current.setLeft(next);
+            current = next;
+        }
+        current.setLeft(head);
+
+        final GraphMockObject clone = Cloneables.templateSnapshot(head).materialize();
+        MockObject node = clone;
+        for (int i = 0; i < depth; i++) {
+            Assert.assertEquals("node", node.getName());
+            node = ((GraphMockObject) node).getLeft();
+        }
+        Assert.assertSame(clone, node);
+    }
+
+    @Test
+    public void testTemplateSnapshotsOfHashedCycles(){
+        // the set's element is only complete once the whole cycle is
+        final ContainerMockObject owner = new ContainerMockObject();
+        owner.setName("owner");
+        final GraphMockObject element = new GraphMockObject();
+        element.setName("element");
+        element.setLeft(owner);
+        owner.getMockObjectSet().add(element);
+        owner.getMockObjectMap().put(element, owner);
+
+        final ContainerMockObject clone = Cloneables.templateSnapshot(owner).materialize();
+        final GraphMockObject clonedElement = (GraphMockObject) clone.getMockObjectSet().iterator().next();
+        Assert.assertNotSame(element, clonedElement);
+        Assert.assertSame(clone, clonedElement.getLeft());
+        Assert.assertTrue(clone.getMockObjectSet().contains(clonedElement));
+        Assert.assertSame(clone, clone.getMockObjectMap().get(clonedElement));
+    }
+
+    @Test
+    public void testTemplateSnapshotsKeepToCloneValues(){
+        final CustomCloneMockObject mo = new CustomCloneMockObject();
+        mo.setName("CustomCloneMockObject");
+        mo.setCreated(new Date(42));
+        mo.setNotes(new StringBuilder("notes"));
+        mo.setCounter(new AtomicLong(7));
+        final TemplateSnapshot<CustomCloneMockObject> snapshot = Cloneables.templateSnapshot(mo);
+
+        // changed in place after the snapshot was taken
+        mo.getCreated().setTime(43);
+        mo.getNotes().append(" changed");
+        mo.getCounter().incrementAndGet();
+
+        final CustomCloneMockObject clone = snapshot.materialize();
+        Assert.assertEquals(new Date(42), clone.getCreated());
+        Assert.assertEquals("notes", clone.getNotes().toString());
+        Assert.assertEquals(7, clone.getCounter().get());
+        Assert.assertNotSame(clone.getNotes(), snapshot.materialize().getNotes());
+    }
+
+    private void assertUnloadable(Path file, String from, String to, String reason) throws IOException {
+        final byte[] bytes = Files.readAllBytes(file);
+        final String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        final int at = text.indexOf(from);
+        Assert.assertTrue(at >= 0);
+        System.arraycopy(to.getBytes(StandardCharsets.ISO_8859_1), 0, bytes, at, to.length());
+        Files.write(file, bytes);
+        try {
+            TemplateSnapshot.load(file);
+            Assert.fail("Loaded a tampered template snapshot");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(reason));
+        }
+    }
+
+    @Test
+    public void testCloneProfiles(){
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final SimpleCompostMockObject simple = (SimpleCompostMockObject) mo.getMockObjectList().get(0);
+
+        final CompostMockObject listOnly = mo.cloneSelf(CloneProfile.named("listOnly", CloneProfile.Mode.SHALLOW)
+                .deep("mockObjectList"));
+        Assert.assertEquals(mo, listOnly);
+        Assert.assertNotSame(mo.getMockObjectList(), listOnly.getMockObjectList());
+        Assert.assertNotSame(simple.getChildObject(),
+                ((SimpleCompostMockObject) listOnly.getMockObjectList().get(0)).getChildObject());
+
+        final CloneProfile noChildren = CloneProfile.named("noChildren").shallow("mockObjectList.childObject").register();
+        final CompostMockObject shallow = mo.cloneAndUpdate(3, CloneProfile.forName("noChildren"));
+        final SimpleCompostMockObject simpleClone = (SimpleCompostMockObject) shallow.getMockObjectList().get(0);
+        Assert.assertNotSame(simple, simpleClone);
+        Assert.assertSame(simple.getChildObject(), simpleClone.getChildObject());
+        Assert.assertEquals("SimpleCompostMockObject_CLONE_3", simpleClone.getName());
+        Assert.assertEquals("PlainMockObject_CLONE_3", shallow.getMockObjectList().get(1).getName());
+        Assert.assertEquals("PlainMockObject", simple.getChildObject().getName());
+
+        final Properties properties = new Properties();
+        properties.setProperty("pricing.*", "shallow");
+        properties.setProperty("pricing.mockObjectList", "skip");
+        final CompostMockObject skipped = mo.cloneSelf(CloneProfile.fromProperties("pricing", properties));
+        Assert.assertNull(skipped.getMockObjectList());
+        Assert.assertEquals(mo.getName(), skipped.getName());
+        Assert.assertSame(CloneProfile.forName("pricing"), CloneProfile.forName("pricing"));
+
+        final List<CompostMockObject> clones = Cloneables.bulkClone(mo, 0, 100, noChildren);
+        Assert.assertEquals("PlainMockObject_CLONE_42", clones.get(42).getMockObjectList().get(1).getName());
+        Assert.assertSame(simple.getChildObject(),
+                ((SimpleCompostMockObject) clones.get(42).getMockObjectList().get(0)).getChildObject());
+
+        try {
+            noChildren.deep("mockObjectList");
+            Assert.fail("Profiles in use can't change");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // a shallow NotToClone value still belongs to the original, updates included
+        final OwnedMockObject owned = new OwnedMockObject();
+        owned.setName("OwnedMockObject");
+        owned.setOwner(generatePlain());
+        final OwnedMockObject ownedClone = owned.cloneAndUpdate(3, CloneProfile.named("owned", CloneProfile.Mode.SHALLOW));
+        Assert.assertSame(owned.getOwner(), ownedClone.getOwner());
+        Assert.assertEquals("PlainMockObject", owned.getOwner().getName());
+        Assert.assertEquals("OwnedMockObject_CLONE_3", ownedClone.getName());
+
+        // misspelled paths aren't silently deep copied
+        for (String path : Arrays.asList("mockObjectLis", "name.length")) {
+            try {
+                mo.cloneSelf(CloneProfile.named("typo").shallow(path));
+                Assert.fail("No field " + path);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testWarmup() throws IOException {
+        Assert.assertEquals(2, CloneWarmup.classes(CompostMockObject.class));
+
+        final String domain = MockObject.class.getPackage().getName();
+        final int found = CloneWarmup.packages(domain);
+        Assert.assertTrue(found > 5);
+
+        final Path index = Files.createTempFile("clone", ".index");
+        Files.delete(index);
+        try {
+            Assert.assertEquals(found, CloneWarmup.packages(index, domain));
+            Assert.assertTrue(Files.exists(index));
+            Assert.assertEquals(found, CloneWarmup.packages(index, domain));
+
+            // out of date indexes are rebuilt
+            final Properties entries = new Properties();
+            try (InputStream in = Files.newInputStream(index)) {
+                entries.load(in);
+            }
+            final String hash = entries.getProperty(CompostMockObject.class.getName());
+            entries.setProperty(CompostMockObject.class.getName(), "0");
+            try (OutputStream out = Files.newOutputStream(index)) {
+                entries.store(out, null);
+            }
+            Assert.assertEquals(found, CloneWarmup.packages(index, domain));
+            try (InputStream in = Files.newInputStream(index)) {
+                entries.load(in);
+            }
+            Assert.assertEquals(hash, entries.getProperty(CompostMockObject.class.getName()));
+        } finally {
+            Files.deleteIfExists(index);
+        }
+    }
+
+    @Test
+    public void testCloneBudgets(){
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final CloneCost cost = Cloneables.estimate(mo);
+        Assert.assertTrue(cost.getObjects() >= 5);
+        Assert.assertTrue(cost.getBytes() > cost.getObjects() * 8);
+        Assert.assertEquals(3, cost.getDepth());
+        Assert.assertFalse(cost.isCyclic());
+
+        final GraphMockObject shared = new GraphMockObject();
+        final MockObject leaf = generatePlain();
+        shared.setLeft(leaf);
+        shared.setRight(leaf);
+        Assert.assertEquals(Cloneables.estimate(shared).getObjects(),
+                Cloneables.estimate(new GraphMockObject()).getObjects() + 2);
+
+        Assert.assertEquals(mo, mo.cloneSelf(CloneBudget.of(100, 1 << 20, 10)));
+        for (CloneBudget budget : Arrays.asList(CloneBudget.UNLIMITED.withMaxObjects(2),
+                CloneBudget.UNLIMITED.withMaxBytes(32), CloneBudget.UNLIMITED.withMaxDepth(2))) {
+            try {
+                mo.cloneSelf(budget);
+                Assert.fail("Over " + budget);
+            } catch (IllegalStateException e) {
+                Assert.assertTrue(e.getMessage().contains("over budget"));
+            }
+        }
+
+        shared.setRight(shared);
+        Assert.assertTrue(Cloneables.estimate(shared).isCyclic());
+        try {
+            shared.cloneSelf(CloneBudget.UNLIMITED);
+            Assert.fail("Cyclic graphs never end");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // enforced by the engines, as they clone
+        CloneBudget.enforce(CloneBudget.UNLIMITED.withMaxObjects(3));
+        try {
+            mo.cloneSelf();
+            Assert.fail("Over budget");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("over budget"));
+        } finally {
+            CloneBudget.enforce(null);
+        }
+        CloneBudget.enforce(CloneBudget.UNLIMITED.withMaxObjects(cost.getObjects() + 1));
+        try {
+            Assert.assertEquals(mo, mo.cloneSelf());
+            Assert.assertEquals(mo, mo.cloneSelf());
+            // copies made outside of any clone aren't charged to the next one
+            for (int i = 0; i < 3; i++)
+                Cloneables.detach(Cloneables.lazyClone(mo), "mockObjectList");
+            Assert.assertEquals(mo, mo.cloneSelf());
+        } finally {
+            CloneBudget.enforce(null);
+        }
+
+        // nor can parallel collections get elements past it
+        final int threshold = Cloneables.getParallelThreshold();
+        Cloneables.setParallelThreshold(1);
+        CloneBudget.enforce(CloneBudget.UNLIMITED.withMaxObjects(3));
+        try {
+            mo.cloneSelf();
+            Assert.fail("Over budget");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("over budget"));
+        } finally {
+            CloneBudget.enforce(null);
+            Cloneables.setParallelThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testCloneStreaming(){
+        final CompostMockObject template = (CompostMockObject) generateCompost();
+
+        final List<String> names = Cloneables.cloneStream(template, 10, 20)
+                .map(MockObject::getName)
+                .collect(Collectors.toList());
+        Assert.assertEquals(10, names.size());
+        Assert.assertEquals("CompostMockObject_CLONE_10", names.get(0));
+        Assert.assertEquals("CompostMockObject_CLONE_19", names.get(9));
+
+        Assert.assertEquals(10_000, Cloneables.cloneStream(template, 0, 10_000).parallel()
+                .filter(clone -> clone.getMockObjectList().size() == 2)
+                .count());
+
+        // released clones are cloned into again
+        final IndexedClones<CompostMockObject> clones = Cloneables.indexedClones(template, 0, 1_000);
+        final Set<CompostMockObject> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        final AtomicInteger index = new AtomicInteger();
+        clones.stream().forEach(clone -> {
+            Assert.assertEquals("PlainMockObject_CLONE_" + index.getAndIncrement(), clone.getMockObjectList().get(1).getName());
+            instances.add(clone);
+            clones.release(clone);
+        });
+        Assert.assertEquals(1_000, index.get());
+        Assert.assertEquals(1, instances.size());
+        Assert.assertEquals("CompostMockObject", template.getName());
+    }
+
+    @Test
+    public void testClonePublishing(){
+        final CompostMockObject template = (CompostMockObject) generateCompost();
+        final IndexedClones<CompostMockObject> clones = Cloneables.indexedClones(template, 0, 100);
+
+        final List<String> names = new ArrayList<>();
+        final AtomicInteger completed = new AtomicInteger();
+        final ClonePublisher.Subscription[] subscription = new ClonePublisher.Subscription[1];
+        clones.publisher(Runnable::run).subscribe(new ClonePublisher.Subscriber<CompostMockObject>() {
+            @Override
+            public void onSubscribe(ClonePublisher.Subscription s) {
+                subscription[0] = s;
+                s.request(2);
+            }
+
+            @Override
+            public void onNext(CompostMockObject item) {
+                names.add(item.getName());
+                clones.release(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                Assert.fail(throwable.toString());
+            }
+
+            @Override
+            public void onComplete() {
+                completed.incrementAndGet();
+            }
+        });
+
+        // never more than requested
+        Assert.assertEquals(2, names.size());
+        Assert.assertEquals(0, completed.get());
+
+        subscription[0].request(8);
+        Assert.assertEquals(10, names.size());
+        Assert.assertEquals("CompostMockObject_CLONE_9", names.get(9));
+
+        subscription[0].request(Long.MAX_VALUE);
+        Assert.assertEquals(100, names.size());
+        Assert.assertEquals(1, completed.get());
+
+        // a throwing subscriber gets the error, and nothing else
+        final List<Throwable> errors = new ArrayList<>();
+        final IllegalStateException failure = new IllegalStateException("onNext");
+        clones.publisher(Runnable::run).subscribe(new ClonePublisher.Subscriber<CompostMockObject>() {
+            @Override
+            public void onSubscribe(ClonePublisher.Subscription s) {
+                subscription[0] = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(CompostMockObject item) {
+                throw failure;
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                errors.add(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.incrementAndGet();
+            }
+        });
+        subscription[0].request(10);
+        Assert.assertEquals(Collections.singletonList(failure), errors);
+        Assert.assertEquals(1, completed.get());
+    }
+
+    @Test
+    public void testParallelCollectionCloning(){
+        final CompostMockObject mo = new CompostMockObject();
+        mo.setName("CompostMockObject");
+        final List<MockObject> list = new LinkedList<>();
+        for (int i = 0; i < 20_000; i++)
+            list.add(i % 2 == 0 ? generatePlain() : generateSimpleCompost());
+        mo.setMockObjectList(list);
+
+        final int threshold = Cloneables.getParallelThreshold();
+        Cloneables.setParallelThreshold(1_000);
+        try {
+            final CompostMockObject clone = mo.cloneSelf();
+            Assert.assertEquals(mo, clone);
+            Assert.assertTrue(clone.getMockObjectList() instanceof LinkedList);
+            final Iterator<MockObject> clones = clone.getMockObjectList().iterator();
+            for (MockObject original : list)
+                Assert.assertNotSame(original, clones.next());
+        } finally {
+            Cloneables.setParallelThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testContainerCloning(){
+        final ContainerMockObject mo = generateContainers();
+        final ContainerMockObject clone = mo.cloneSelf();
+        assertContainersCloned(mo, clone);
+
+        clone.updateSelf(4);
+        assertContainersUpdated(clone, 4);
+        Assert.assertEquals("PlainMockObject", mo.getMockObjectArray()[0].getName());
+
+        final ContainerMockObject contextClone = mo.cloneSelf(new CloneContext());
+        assertContainersCloned(mo, contextClone);
+
+        contextClone.updateSelf(5, new CloneContext());
+        assertContainersUpdated(contextClone, 5);
+        assertContainersUpdated(mo.cloneAndUpdate(6), 6);
+        Assert.assertEquals(Collections.singletonMap("code", "A"), mo.getCodes());
+    }
+
+    @Test
+    public void testLazyCloning(){
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final SimpleCompostMockObject simple = (SimpleCompostMockObject) mo.getMockObjectList().get(0);
+
+        final CompostMockObject lazy = Cloneables.lazyClone(mo);
+        Assert.assertNotSame(mo, lazy);
+        Assert.assertSame(mo.getMockObjectList(), lazy.getMockObjectList());
+
+        final CompostMockObject variant = Cloneables.lazyClone(mo, 3);
+        Assert.assertEquals("CompostMockObject_CLONE_3", variant.getName());
+        Assert.assertEquals("PlainMockObject_CLONE_3", variant.getMockObjectList().get(1).getName());
+        final SimpleCompostMockObject simpleVariant = (SimpleCompostMockObject) variant.getMockObjectList().get(0);
+        Assert.assertEquals("SimpleCompostMockObject_CLONE_3", simpleVariant.getName());
+        // NotToUpdate, so never copied
+        Assert.assertSame(simple.getChildObject(), simpleVariant.getChildObject());
+
+        Cloneables.lazyUpdate(lazy, 5);
+        Assert.assertEquals("CompostMockObject_CLONE_5", lazy.getName());
+        Assert.assertEquals("PlainMockObject_CLONE_5", lazy.getMockObjectList().get(1).getName());
+        Assert.assertNotSame(mo.getMockObjectList(), lazy.getMockObjectList());
+
+        final List<MockObject> list = Cloneables.detach(lazy, "mockObjectList");
+        list.add(generatePlain());
+        Assert.assertEquals(2, mo.getMockObjectList().size());
+
+        final SimpleCompostMockObject lazySimple = Cloneables.lazyClone(simple);
+        final MockObject child = Cloneables.detach(lazySimple, "childObject");
+        child.setName("changed");
+        Assert.assertSame(child, lazySimple.getChildObject());
+        Assert.assertEquals("PlainMockObject", simple.getChildObject().getName());
+
+        Assert.assertEquals("CompostMockObject", mo.getName());
+        Assert.assertEquals("PlainMockObject", mo.getMockObjectList().get(1).getName());
+        Assert.assertEquals("SimpleCompostMockObject", simple.getName());
+    }
+
+    @Test
+    public void testConcurrentCloning() throws InterruptedException {
+        final int threads = 2_000;
+        final CompostMockObject template = (CompostMockObject) generateCompost();
+        final ContainerMockObject containers = generateContainers();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            final Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    final CompostMockObject clone = template.cloneSelf();
+                    clone.updateSelf(index);
+                    Assert.assertEquals("CompostMockObject_CLONE_" + index, clone.getName());
+                    Assert.assertEquals("PlainMockObject_CLONE_" + index, clone.getMockObjectList().get(1).getName());
+
+                    final ContainerMockObject containersClone = containers.cloneSelf(new CloneContext());
+                    containersClone.updateSelf(index, new CloneContext());
+                    assertContainersUpdated(containersClone, index);
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+
+        Assert.assertTrue("Failures: " + failures, failures.isEmpty());
+        Assert.assertEquals("CompostMockObject", template.getName());
+    }
+
+    @Test
+    public void testCustomCloning(){
+        final CustomCloneMockObject mo = new CustomCloneMockObject();
+        mo.setName("CustomCloneMockObject");
+        mo.setCreated(new Date(42));
+        mo.setNotes(new StringBuilder("notes"));
+        mo.setCounter(new AtomicLong(7));
+        mo.setRevision(new Revision(3));
+
+        final CustomCloneMockObject clone = mo.cloneSelf();
+        Assert.assertNotSame(mo.getRevision(), clone.getRevision());
+        Assert.assertEquals(3, clone.getRevision().getNumber());
+        Assert.assertEquals("Comparable", clone.getRevision().getCopiedBy());
+        Assert.assertNotSame(mo.getCreated(), clone.getCreated());
+        Assert.assertEquals(mo.getCreated(), clone.getCreated());
+        Assert.assertNotSame(mo.getNotes(), clone.getNotes());
+        Assert.assertEquals("notes", clone.getNotes().toString());
+        Assert.assertNotSame(mo.getCounter(), clone.getCounter());
+        Assert.assertEquals(7, clone.getCounter().get());
+
+        final CustomCloneMockObject contextClone = mo.cloneSelf(new CloneContext());
+        Assert.assertNotSame(mo.getNotes(), contextClone.getNotes());
+        Assert.assertEquals(7, contextClone.getCounter().get());
+
+        // resolved when the class is first seen, not when the field is first cloned
+        try {
+            new BrokenCloneMockObject().cloneSelf();
+            Assert.fail("Bad ToClone definitions must fail");
+        } catch (RuntimeException | Error e) {
+            Throwable cause = e;
+            while (cause.getCause() != null)
+                cause = cause.getCause();
+            Assert.assertTrue(cause.toString(), cause instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testInstantiation(){
+        final ConstructorlessMockObject mo = new ConstructorlessMockObject(42, "label");
+        mo.setName("ConstructorlessMockObject");
+
+        final ConstructorlessMockObject clone = mo.cloneSelf();
+        Assert.assertNotSame(mo, clone);
+        Assert.assertEquals(42, clone.getId());
+        Assert.assertEquals("label", clone.getLabel());
+        clone.updateSelf(2);
+        Assert.assertEquals("ConstructorlessMockObject_CLONE_2", clone.getName());
+
+        final AtomicInteger created = new AtomicInteger();
+        Instantiators.register(ConstructorlessMockObject.class, () -> {
+            created.incrementAndGet();
+            return new ConstructorlessMockObject(0, null);
+        });
+        final ConstructorlessMockObject registered = mo.cloneSelf();
+        Assert.assertEquals(1, created.get());
+        Assert.assertEquals(42, registered.getId());
+        Assert.assertEquals("label", registered.getLabel());
+    }
+
+    @Test
+    public void testMetrics() throws JMException {
+        final CompostMockObject mo = (CompostMockObject) generateCompost();
+        final AtomicInteger objects = new AtomicInteger();
+        final AtomicInteger elements = new AtomicInteger();
+        final AtomicInteger specifications = new AtomicInteger();
+        final List<Class<?>> wholeClones = new ArrayList<>();
+        final List<Class<?>> wholeUpdates = new ArrayList<>();
+        final CloneListener listener = new CloneListener() {
+            @Override
+            public void objectCloned(Class<?> type) {
+                objects.incrementAndGet();
+            }
+
+            @Override
+            public void elementsCopied(Class<?> containerType, int count) {
+                elements.addAndGet(count);
+            }
+
+            @Override
+            public void specificationApplied(Class<?> specification) {
+                specifications.incrementAndGet();
+            }
+
+            @Override
+            public void cloned(Class<?> type, int objects, long nanos) {
+                wholeClones.add(type);
+                Assert.assertEquals(4, objects);
+            }
+
+            @Override
+            public void updated(Class<?> type, long nanos) {
+                wholeUpdates.add(type);
+            }
+        };
+
+        final CloneStatistics statistics = CloneMetrics.enableStatistics();
+        CloneMetrics.addListener(listener);
+        final int copied;
+        try {
+            final CompostMockObject clone = mo.cloneSelf();
+            copied = elements.get();
+            clone.updateSelf(1);
+        } finally {
+            CloneMetrics.removeListener(listener);
+            CloneMetrics.removeListener(statistics);
+        }
+
+        // the compost, both list elements and the simple compost's child
+        Assert.assertEquals(4, objects.get());
+        Assert.assertEquals(2, copied);
+        Assert.assertTrue(specifications.get() > 0);
+        Assert.assertEquals(Collections.singletonList(CompostMockObject.class), wholeClones);
+        Assert.assertEquals(Collections.singletonList(CompostMockObject.class), wholeUpdates);
+
+        Assert.assertEquals(1, statistics.of(CompostMockObject.class).getClones());
+        Assert.assertEquals(2, statistics.of(MockObject.class).getObjectsCloned());
+        final ObjectName name = new ObjectName(CloneStatistics.DOMAIN + ":type=CloneStatistics,name="
+                + ObjectName.quote(CompostMockObject.class.getName()));
+        Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Updates"));
+
+        mo.cloneSelf();
+        Assert.assertEquals(4, objects.get());
+
+        // elements cloned on the pool's workers still count towards the clone that reached their list
+        final int threshold = Cloneables.getParallelThreshold();
+        Cloneables.setParallelThreshold(1);
+        CloneMetrics.addListener(listener);
+        try {
+            mo.cloneSelf();
+        } finally {
+            CloneMetrics.removeListener(listener);
+            Cloneables.setParallelThreshold(threshold);
+        }
+        Assert.assertEquals(8, objects.get());
+        Assert.assertEquals(Arrays.asList(CompostMockObject.class, CompostMockObject.class), wholeClones);
+    }
+
+    private ContainerMockObject generateContainers(){
+        final ContainerMockObject mo = new ContainerMockObject();
+        mo.setName("ContainerMockObject");
+        mo.getMockObjectMap().put(generatePlain(), generateSimpleCompost());
+        mo.getMockObjectSet().add(generatePlain());
+        mo.getMockObjectSet().add(generateSimpleCompost());
+        mo.getSortedMockObjects().put("b", generatePlain());
+        mo.getSortedMockObjects().put("a", generatePlain());
+        mo.getMockObjectDeque().add(generatePlain());
+        mo.setMockObjectArray(new MockObject[]{generatePlain(), null, generateSimpleCompost()});
+        mo.setNumbers(new int[]{1, 2, 3});
+        mo.getTags().add("tag");
+        mo.setReference(new ImmutableMockObject("reference"));
+        mo.getCodes().put("code", "A");
+        return mo;
+    }
+
+    private void assertContainersCloned(ContainerMockObject mo, ContainerMockObject clone){
+        Assert.assertEquals(mo.getMockObjectMap(), clone.getMockObjectMap());
+        Assert.assertNotSame(mo.getMockObjectMap().keySet().iterator().next(), clone.getMockObjectMap().keySet().iterator().next());
+        Assert.assertTrue(clone.getMockObjectSet() instanceof HashSet);
+        Assert.assertEquals(mo.getMockObjectSet(), clone.getMockObjectSet());
+        Assert.assertEquals(mo.getSortedMockObjects(), clone.getSortedMockObjects());
+        Assert.assertNotSame(mo.getSortedMockObjects().get("a"), clone.getSortedMockObjects().get("a"));
+        Assert.assertEquals(mo.getMockObjectDeque().peek(), clone.getMockObjectDeque().peek());
+        Assert.assertNotSame(mo.getMockObjectDeque().peek(), clone.getMockObjectDeque().peek());
+        Assert.assertArrayEquals(mo.getMockObjectArray(), clone.getMockObjectArray());
+        Assert.assertNotSame(mo.getMockObjectArray()[2], clone.getMockObjectArray()[2]);
+        Assert.assertArrayEquals(mo.getNumbers(), clone.getNumbers());
+        Assert.assertNotSame(mo.getNumbers(), clone.getNumbers());
+        Assert.assertNotSame(mo.getTags(), clone.getTags());
+        Assert.assertEquals(mo.getTags(), clone.getTags());
+        Assert.assertSame(mo.getReference(), clone.getReference());
+    }
+
+    private void assertContainersUpdated(ContainerMockObject clone, int index){
+        final String plain = "PlainMockObject_CLONE_" + index;
+        final Map.Entry<MockObject, MockObject> entry = clone.getMockObjectMap().entrySet().iterator().next();
+        Assert.assertEquals(plain, entry.getKey().getName());
+        Assert.assertSame(entry.getValue(), clone.getMockObjectMap().get(entry.getKey()));
+        for (MockObject element : clone.getMockObjectSet())
+            Assert.assertTrue(clone.getMockObjectSet().contains(element));
+        Assert.assertEquals(plain, clone.getSortedMockObjects().get("a").getName());
+        Assert.assertEquals(plain, clone.getMockObjectDeque().peek().getName());
+        Assert.assertEquals(plain, clone.getMockObjectArray()[0].getName());
+        Assert.assertEquals("SimpleCompostMockObject_CLONE_" + index, clone.getMockObjectArray()[2].getName());
+        // a Map with a spec of its own is updated as a whole
+        Assert.assertEquals(Collections.singletonMap("code", "A_CODE_" + index), clone.getCodes());
+    }
+
     private List<MockObject> generateObjectList(){
         return new ArrayList<MockObject>(){{
             add(generatePlain());
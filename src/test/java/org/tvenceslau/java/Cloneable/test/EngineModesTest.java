@@ -0,0 +1,97 @@
+package org.tvenceslau.java.Cloneable.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.tvenceslau.java.Cloneable.AccessorEngine;
+import org.tvenceslau.java.Cloneable.Cloneables;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Runs the whole {@link CloneablesTest} again under each engine picked by a system property.
+ * <p>Those properties are only read when the library's classes load, so every run gets a class loader of its own,
+ * which loads the library, the mocks and the tests again</p>
+ */
+public class EngineModesTest {
+
+    private static final String LIBRARY_PACKAGE = "org.tvenceslau.java.Cloneable.";
+
+    @Test
+    public void testReflectionAccessors() throws Exception {
+        runWith(AccessorEngine.PROPERTY, "reflection", AccessorEngine.class, "CURRENT", AccessorEngine.REFLECTION.name());
+    }
+
+    @Test
+    public void testGeneratedCloners() throws Exception {
+        runWith(Cloneables.GENERATED_PROPERTY, "true", Cloneables.class, "GENERATED", "true");
+    }
+
+    @Test
+    public void testIterativeTraversal() throws Exception {
+        runWith(Cloneables.TRAVERSAL_PROPERTY, "iterative", Cloneables.class, "ITERATIVE", "true");
+    }
+
+    /**
+     * Runs {@link CloneablesTest} with {@param property} set to {@param value}, after checking that the static
+     * {@param field} of {@param type} reads {@param expected} in there
+     */
+    private static void runWith(String property, String value, Class<?> type, String field, String expected)
+            throws Exception {
+        final String previous = System.getProperty(property);
+        final Thread thread = Thread.currentThread();
+        final ClassLoader context = thread.getContextClassLoader();
+        System.setProperty(property, value);
+        try (Isolated loader = new Isolated()) {
+            thread.setContextClassLoader(loader);
+
+            final Field mode = loader.loadClass(type.getName()).getDeclaredField(field);
+            mode.setAccessible(true);
+            Assert.assertEquals(expected, String.valueOf(mode.get(null)));
+
+            final Result result = new JUnitCore().run(loader.loadClass(CloneablesTest.class.getName()));
+            Assert.assertTrue(property + "=" + value + ": " + result.getFailures(), result.wasSuccessful());
+            Assert.assertTrue(result.getRunCount() > 0);
+        } finally {
+            thread.setContextClassLoader(context);
+            if (previous == null)
+                System.clearProperty(property);
+            else
+                System.setProperty(property, previous);
+        }
+    }
+
+    /**
+     * Loads the library and its tests itself, everything else (JUnit, the JDK) from the usual class path
+     */
+    private static final class Isolated extends URLClassLoader {
+
+        Isolated() throws IOException {
+            super(new URL[]{location(Cloneables.class), location(CloneablesTest.class)},
+                    EngineModesTest.class.getClassLoader());
+        }
+
+        private static URL location(Class<?> type) {
+            return type.getProtectionDomain().getCodeSource().getLocation();
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(LIBRARY_PACKAGE))
+                return super.loadClass(name, resolve);
+
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null)
+                    type = findClass(name);
+                if (resolve)
+                    resolveClass(type);
+                return type;
+            }
+        }
+    }
+}